@@ -0,0 +1,72 @@
+package lms.engine;
+
+import lms.exceptions.FileFormatException;
+import lms.io.GameLoader;
+import lms.io.SaveFileGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures full ticks of a generated grid through the SimulationEngine, for each backend and a
+ * range of parallelism.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SimulationEngineBenchmark {
+    /** The range of the generated grid. */
+    @Param({"10", "100", "300"})
+    private int range;
+
+    /** The backend to tick with. */
+    @Param({"OBJECTS", "ARRAYS"})
+    private Backend backend;
+
+    /** The number of threads to tick with. */
+    @Param({"1", "4"})
+    private int parallelism;
+
+    /** The engine being measured. */
+    private SimulationEngine engine;
+
+    @Setup
+    public void setUp() throws IOException, FileFormatException {
+        engine = new SimulationEngine(
+                GameLoader.load(new StringReader(SaveFileGenerator.generate(range))));
+        engine.setBackend(backend);
+        engine.setParallelism(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public void tick() {
+        engine.tick();
+    }
+
+    @Benchmark
+    public void step100() {
+        engine.step(100);
+    }
+}
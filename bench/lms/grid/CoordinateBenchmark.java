@@ -0,0 +1,65 @@
+package lms.grid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Coordinate operations used in inner loops: neighbour arithmetic, neighbour
+ * checks, direction lookup and hashing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CoordinateBenchmark {
+    /** The Coordinate operations are applied to. */
+    private Coordinate coordinate;
+
+    /** A neighbour of coordinate. */
+    private Coordinate neighbour;
+
+    /** A Coordinate in a straight line from coordinate, but not a neighbour. */
+    private Coordinate distant;
+
+    @Setup
+    public void setUp() {
+        coordinate = new Coordinate(7, -3);
+        neighbour = coordinate.getBottomLeft();
+        distant = new Coordinate(7, 12);
+    }
+
+    @Benchmark
+    public void neighbours(Blackhole blackhole) {
+        for (Orientation orientation : Orientation.values()) {
+            blackhole.consume(coordinate.neighbour(orientation));
+        }
+    }
+
+    @Benchmark
+    public boolean isNeighbour() {
+        return coordinate.isNeighbour(neighbour);
+    }
+
+    @Benchmark
+    public Orientation getDirection() {
+        return coordinate.getDirection(distant);
+    }
+
+    @Benchmark
+    public int hash() {
+        return coordinate.hashCode();
+    }
+}
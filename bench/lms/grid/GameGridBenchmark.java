@@ -0,0 +1,75 @@
+package lms.grid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GameGrid construction, Coordinate lookup and iteration over the cells.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GameGridBenchmark {
+    /** The number of Coordinates looked up per invocation of lookup(). */
+    private static final int LOOKUPS = 1024;
+
+    /** The range of the grid. */
+    @Param({"10", "100", "500"})
+    private int range;
+
+    /** The grid to look up and iterate. */
+    private GameGrid grid;
+
+    /** Random Coordinates within the grid to look up. */
+    private Coordinate[] coordinates;
+
+    @Setup
+    public void setUp() {
+        grid = new GameGrid(range);
+        coordinates = new Coordinate[LOOKUPS];
+        Random random = new Random(2002);
+        for (int i = 0; i < LOOKUPS; i++) {
+            int q = random.nextInt(range * 2 + 1) - range;
+            int r = Math.max(-range, -range - q) + random.nextInt(range * 2 + 1 - Math.abs(q));
+            coordinates[i] = new Coordinate(q, r);
+        }
+    }
+
+    @Benchmark
+    public GameGrid construct() {
+        return new GameGrid(range);
+    }
+
+    @Benchmark
+    public void lookup(Blackhole blackhole) {
+        for (Coordinate coordinate : coordinates) {
+            blackhole.consume(grid.getView().get(coordinate));
+        }
+    }
+
+    @Benchmark
+    public void forEachCell(Blackhole blackhole) {
+        grid.forEachCell((q, r, component) -> blackhole.consume(component));
+    }
+
+    @Benchmark
+    public int copy() {
+        return grid.getGrid().size();
+    }
+}
@@ -0,0 +1,83 @@
+package lms.io;
+
+import lms.exceptions.FileFormatException;
+import lms.grid.GameGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GameLoader on generated save files of increasing range, both from a Reader over the
+ * file in memory and from a memory-mapped file with increasing parallelism. The mapped file is
+ * read once before measuring, so it is served from the page cache rather than the disk. Lazy
+ * loading is measured up to the point where the grid is returned, with no rows created.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GameLoaderBenchmark {
+    /** The range of the generated save file. */
+    @Param({"10", "50", "200"})
+    private int range;
+
+    /** The number of threads used to parse the mapped file. */
+    @Param({"1", "4"})
+    private int parallelism;
+
+    /** The contents of the generated save file. */
+    private String save;
+
+    /** The generated save file on disk. */
+    private java.nio.file.Path file;
+
+    /** The loader used to load the mapped file. */
+    private GameLoader loader;
+
+    @Setup
+    public void setUp() throws IOException {
+        save = SaveFileGenerator.generate(range);
+        file = Files.createTempFile("bench", ".txt");
+        Files.writeString(file, save);
+        Files.readAllBytes(file);
+        loader = new GameLoader();
+        loader.setParallelism(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public GameGrid load() throws IOException, FileFormatException {
+        return GameLoader.load(new StringReader(save));
+    }
+
+    @Benchmark
+    public GameGrid loadMapped() throws IOException, FileFormatException {
+        return loader.read(file);
+    }
+
+    @Benchmark
+    public GameGrid loadLazily() throws IOException, FileFormatException {
+        return loader.readLazily(file);
+    }
+}
@@ -0,0 +1,100 @@
+package lms.io;
+
+import lms.grid.Coordinate;
+import lms.grid.GameGrid;
+import lms.grid.Tile;
+import lms.logistics.Item;
+import lms.logistics.ItemRegistry;
+import lms.logistics.Transport;
+import lms.logistics.belts.Belt;
+import lms.logistics.container.Producer;
+import lms.logistics.container.Receiver;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Generates synthetic save files of any range for the benchmarks, so that they do not depend on
+ * the small example files in saves/.
+ * <p>
+ * Every row of the hexagon holds one chain: a Producer in the first cell, a Receiver in the last
+ * cell and Belts in between, linked left to right. The Producer and Receiver of a row share one
+ * of a small set of item keys. Rows with a single cell (only when the range is 0) hold a wall.
+ * The grid is built in memory and written out with GameWriter.
+ */
+public class SaveFileGenerator {
+    /** The number of distinct item keys used across the rows. */
+    private static final int KEYS = 16;
+
+    /**
+     * Generates a save file with the given range.
+     * @param range the range of the grid.
+     * @return the contents of the generated save file.
+     * @requires range &gt;= 0
+     */
+    public static String generate(int range) {
+        StringWriter writer = new StringWriter();
+        try {
+            generate(range, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // StringWriter never throws
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes a save file with the given range.
+     * @param range the range of the grid.
+     * @param writer the writer to write the save file to.
+     * @throws IOException if there is an error writing to the writer.
+     * @requires range &gt;= 0
+     */
+    public static void generate(int range, Writer writer) throws IOException {
+        GameWriter.write(grid(range), writer);
+    }
+
+    /**
+     * Builds the grid described by a generated save file with the given range.
+     * @param range the range of the grid.
+     * @return the generated GameGrid.
+     * @requires range &gt;= 0
+     */
+    public static GameGrid grid(int range) {
+        GameGrid grid = new GameGrid(range);
+        ItemRegistry registry = new ItemRegistry();
+        int rows = range * 2 + 1;
+        int id = 1;
+        for (int row = 0; row < rows; row++) {
+            int r = row - range;
+            int firstQ = Math.max(-range, -range - r);
+            int width = rows - Math.abs(r);
+            if (width == 1) {
+                grid.setCoordinate(new Coordinate(firstQ, r), Tile.WALL);
+                continue;
+            }
+
+            // One chain per row, linked left to right
+            Item key = registry.intern("key" + row % KEYS);
+            Transport previous = null;
+            for (int column = 0; column < width; column++) {
+                Transport node;
+                if (column == 0) {
+                    node = new Producer(id++, key);
+                } else if (column == width - 1) {
+                    node = new Receiver(id++, key);
+                } else {
+                    node = new Belt(id++);
+                }
+                if (previous != null) {
+                    previous.setOutput(node.getPath());
+                    node.setInput(previous.getPath());
+                }
+                grid.setCoordinate(new Coordinate(firstQ + column, r), node);
+                previous = node;
+            }
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,55 @@
+package lms.logistics;
+
+import lms.logistics.belts.Belt;
+import lms.logistics.container.Producer;
+import lms.logistics.container.Receiver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full tick of a single chain (a Producer, a number of Belts and a Receiver) through
+ * Path.applyAll and Transport.tick, for chains from 10 to a million belts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ChainTickBenchmark {
+    /** The number of belts between the Producer and the Receiver. */
+    @Param({"10", "1000", "100000", "1000000"})
+    private int belts;
+
+    /** The Path of the Receiver at the tail of the chain. */
+    private Path tail;
+
+    @Setup
+    public void setUp() {
+        Item key = new ItemRegistry().intern("key");
+        Transport previous = new Producer(1, key);
+        for (int id = 2; id <= belts + 2; id++) {
+            Transport node = id == belts + 2 ? new Receiver(id, key) : new Belt(id);
+            previous.setOutput(node.getPath());
+            node.setInput(previous.getPath());
+            previous = node;
+        }
+        tail = previous.getPath();
+    }
+
+    @Benchmark
+    public void applyAll() {
+        tail.applyAll(Transport::tick);
+    }
+}
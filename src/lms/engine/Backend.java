@@ -0,0 +1,11 @@
+package lms.engine;
+
+/**
+ * enum containing the execution backends a SimulationEngine can tick with
+ */
+public enum Backend {
+    /** Ticks each Transport node through its tick() method. */
+    OBJECTS,
+    /** Ticks primitive copies of the chains in a ChainKernel, writing them back afterwards. */
+    ARRAYS;
+}
@@ -0,0 +1,233 @@
+package lms.engine;
+
+import lms.exceptions.BadStateException;
+import lms.logistics.Item;
+import lms.logistics.ItemRegistry;
+import lms.logistics.Path;
+import lms.logistics.Transport;
+import lms.logistics.belts.Belt;
+import lms.logistics.container.Container;
+import lms.logistics.container.Producer;
+import lms.logistics.container.Receiver;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structure-of-arrays execution backend for a TickSchedule. Each scheduled node is a slot in a
+ * set of primitive arrays (its type, the item it holds, its key and the slot it outputs to), and
+ * a chain is advanced by a tight loop over those arrays without any virtual calls or allocation.
+ * <p>
+ * The kernel does not share state with the Transport nodes it was built from: load() copies the
+ * state of the nodes into the arrays and store() writes it back, after which the nodes are in
+ * exactly the state that ticking them directly would have left them in.
+ * <p>
+ * Items are stored by their id in the ItemRegistry the nodes' keys were interned in, offset by
+ * one so that 0 can mark an empty slot.
+ */
+public class ChainKernel implements ChainTicker {
+    /** Type tag for a Belt slot. */
+    private static final byte BELT = 0;
+    /** Type tag for a Producer slot. */
+    private static final byte PRODUCER = 1;
+    /** Type tag for a Receiver slot. */
+    private static final byte RECEIVER = 2;
+
+    /** Item id stored in a slot that holds no item. */
+    private static final int EMPTY = 0;
+
+    /** The node each slot was built from, scheduled slots followed by output-only slots. */
+    private final Transport[] nodes;
+
+    /** The slot at which each chain starts, followed by the number of scheduled slots. */
+    private final int[] chainStart;
+
+    /** The type tag of each slot. */
+    private final byte[] type;
+
+    /** The slot that each slot outputs to, or -1 if it has no output. */
+    private final int[] next;
+
+    /** The slot value of the key Item of each Producer and Receiver slot. */
+    private final int[] key;
+
+    /** The slot value of the Item held by each slot, or EMPTY. */
+    private final int[] item;
+
+    /** The tick counter of each Producer slot. */
+    private final int[] counter;
+
+    /** The registry that item ids refer to. */
+    private final ItemRegistry registry;
+
+    /**
+     * Constructs a new ChainKernel with a slot for every node in the given schedule, and loads
+     * the current state of those nodes.
+     * @param schedule the TickSchedule to build the kernel from.
+     * @throws IllegalArgumentException if the schedule contains a node which is not a Belt,
+     * Producer or Receiver.
+     */
+    public ChainKernel(TickSchedule schedule) throws IllegalArgumentException {
+        int chains = schedule.getChainCount();
+        int scheduled = schedule.size();
+
+        chainStart = new int[chains + 1];
+        for (int chain = 0; chain <= chains; chain++) {
+            chainStart[chain] = schedule.getChainStart(chain);
+        }
+
+        List<Transport> slots = new ArrayList<>(scheduled);
+        Map<Transport, Integer> slotIds = new IdentityHashMap<>();
+        for (int i = 0; i < scheduled; i++) {
+            slots.add(schedule.getNode(i));
+            slotIds.put(schedule.getNode(i), i);
+        }
+
+        // Outputs that are not scheduled themselves (only possible inside a closed loop) still
+        // receive items, so they are given a slot that is never ticked
+        next = new int[scheduled];
+        for (int i = 0; i < scheduled; i++) {
+            Path output = slots.get(i).getOutput();
+            if (output == null) {
+                next[i] = -1;
+                continue;
+            }
+            Integer target = slotIds.get(output.getNode());
+            if (target == null) {
+                target = slots.size();
+                slots.add(output.getNode());
+                slotIds.put(output.getNode(), target);
+            }
+            next[i] = target;
+        }
+
+        nodes = slots.toArray(new Transport[0]);
+        type = new byte[nodes.length];
+        key = new int[nodes.length];
+        item = new int[nodes.length];
+        counter = new int[nodes.length];
+        registry = findRegistry(nodes);
+
+        for (int i = 0; i < nodes.length; i++) {
+            Transport node = nodes[i];
+            if (node.getClass() == Producer.class) {
+                type[i] = PRODUCER;
+                key[i] = idOf(((Producer) node).getKey());
+            } else if (node.getClass() == Receiver.class) {
+                type[i] = RECEIVER;
+                key[i] = idOf(((Receiver) node).getKey());
+            } else if (node.getClass() == Belt.class) {
+                type[i] = BELT;
+            } else {
+                throw new IllegalArgumentException("Unsupported node " + node);
+            }
+        }
+
+        load();
+    }
+
+    /**
+     * Accessor method to get the number of chains in this kernel.
+     * @return the number of chains.
+     */
+    @Override
+    public int getChainCount() {
+        return chainStart.length - 1;
+    }
+
+    /**
+     * Copies the inventory of every node, and the counter of every Producer, into the kernel.
+     */
+    public void load() {
+        for (int i = 0; i < nodes.length; i++) {
+            item[i] = idOf(nodes[i].getStoredInventory());
+            if (type[i] == PRODUCER) {
+                counter[i] = ((Producer) nodes[i]).getCounter();
+            }
+        }
+    }
+
+    /**
+     * Writes the inventory of every slot, and the counter of every Producer slot, back to the
+     * nodes the kernel was built from.
+     */
+    public void store() {
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i].setStoredInventory(item[i] == EMPTY ? null : registry.get(item[i] - 1));
+            if (type[i] == PRODUCER) {
+                ((Producer) nodes[i]).setCounter(counter[i]);
+            }
+        }
+    }
+
+    /**
+     * Ticks every slot of the given chain, from its tail back to its head, following the same
+     * rules as Belt, Producer and Receiver.
+     * @param chain the index of the chain to tick.
+     * @throws BadStateException if a Receiver slot holds an item that does not match its key, in
+     * which case the slots before it in the chain are not ticked.
+     * @requires 0 &lt;= chain &lt; getChainCount()
+     */
+    @Override
+    public void tickChain(int chain) throws BadStateException {
+        final int[] item = this.item;
+        final int[] next = this.next;
+
+        for (int i = chainStart[chain], end = chainStart[chain + 1]; i < end; i++) {
+            switch (type[i]) {
+                case PRODUCER -> {
+                    if (++counter[i] % 2 == 1) {
+                        int target = next[i];
+                        if (item[i] != EMPTY && target >= 0 && item[target] == EMPTY) {
+                            item[target] = item[i];
+                        }
+                        item[i] = key[i];
+                    }
+                }
+                case RECEIVER -> {
+                    if (item[i] != EMPTY && item[i] != key[i]) {
+                        throw new BadStateException("Receiver inventory != key value");
+                    }
+                    item[i] = EMPTY;
+                }
+                default -> {
+                    int target = next[i];
+                    if (item[i] != EMPTY && target >= 0 && item[target] == EMPTY) {
+                        item[target] = item[i];
+                        item[i] = EMPTY;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A helper method used to find the registry the keys of the given nodes were interned in. A
+     * new registry is used if none of the keys were interned.
+     * @param nodes the nodes the kernel is built from.
+     * @return the ItemRegistry to take item ids from.
+     */
+    private static ItemRegistry findRegistry(Transport[] nodes) {
+        for (Transport node : nodes) {
+            if (node instanceof Container container && container.getKey().getRegistry() != null) {
+                return container.getKey().getRegistry();
+            }
+        }
+        return new ItemRegistry();
+    }
+
+    /**
+     * A helper method used to get the slot value of an Item. Items that were not interned in the
+     * kernel's registry are interned in it by name.
+     * @param value the Item to get the slot value of, or null.
+     * @return the id of the given Item plus one, or EMPTY if it is null.
+     */
+    private int idOf(Item value) {
+        if (value == null) {
+            return EMPTY;
+        }
+        return registry.idOf(value) + 1;
+    }
+}
@@ -0,0 +1,24 @@
+package lms.engine;
+
+import lms.exceptions.BadStateException;
+
+/**
+ * An execution backend that advances the chains of a compiled TickSchedule. Chains never share
+ * nodes, so any chain can be ticked independently of the others.
+ */
+public interface ChainTicker {
+
+    /**
+     * Returns the number of chains advanced by this backend.
+     * @return the number of chains.
+     */
+    int getChainCount();
+
+    /**
+     * Ticks every node of the given chain, from its tail back to its head.
+     * @param chain the index of the chain to tick.
+     * @throws BadStateException if a node in the chain reaches a bad state, in which case the
+     * nodes before it in the chain are not ticked.
+     */
+    void tickChain(int chain) throws BadStateException;
+}
@@ -0,0 +1,75 @@
+package lms.engine;
+
+import lms.logistics.Item;
+import lms.logistics.Transport;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The nodes of a TickSchedule whose Item has changed since they were last reported. Each node is
+ * compared, using getInventory() and Item.equals(), with the Item it held when it was last
+ * reported, so that only changes that can be seen are reported. A node that changes several times
+ * between reports is only reported once, and reporting only visits the nodes that changed.
+ */
+final class ChangeLog {
+    /** The schedule whose nodes are logged. */
+    private final TickSchedule schedule;
+
+    /** The Item each node held when it was last reported, by position in the schedule. */
+    private final Item[] reported;
+
+    /** Whether each node is waiting to be reported, by position in the schedule. */
+    private final boolean[] pending;
+
+    /** The positions of the nodes waiting to be reported, in its first count elements. */
+    private final int[] changed;
+
+    /** The number of nodes waiting to be reported. */
+    private int count;
+
+    /**
+     * Constructs a new ChangeLog for the given schedule. Nothing is known about what was shown
+     * of the nodes before, so every node starts out waiting to be reported.
+     * @param schedule the schedule whose nodes are logged.
+     */
+    ChangeLog(TickSchedule schedule) {
+        this.schedule = schedule;
+        int size = schedule.size();
+        reported = new Item[size];
+        pending = new boolean[size];
+        changed = new int[size];
+        for (int i = 0; i < size; i++) {
+            pending[i] = true;
+            changed[i] = i;
+        }
+        count = size;
+    }
+
+    /**
+     * Finds the nodes whose Item differs from the one they held when last reported, and records
+     * them to be reported. Must only be called while the nodes hold the state of the simulation.
+     */
+    void check() {
+        for (int i = 0; i < reported.length; i++) {
+            if (!pending[i] && !Objects.equals(schedule.getNode(i).getInventory(), reported[i])) {
+                pending[i] = true;
+                changed[count++] = i;
+            }
+        }
+    }
+
+    /**
+     * Passes every node waiting to be reported to the given action, and forgets them.
+     * @param action the action to perform for each changed node.
+     */
+    void report(Consumer<? super Transport> action) {
+        while (count > 0) {
+            int i = changed[--count];
+            Transport node = schedule.getNode(i);
+            reported[i] = node.getInventory();
+            pending[i] = false;
+            action.accept(node);
+        }
+    }
+}
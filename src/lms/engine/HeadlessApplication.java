@@ -0,0 +1,84 @@
+package lms.engine;
+
+import lms.exceptions.FileFormatException;
+import lms.grid.GameGrid;
+import lms.io.GameLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line application which loads a save file and runs it through a SimulationEngine
+ * without a GUI, reporting the number of ticks processed per second.
+ */
+public class HeadlessApplication {
+
+    /**
+     * Main method for the headless application.
+     * <p>
+     * Usage: save_file ticks [ticks_per_second [parallelism [snapshot_file snapshot_interval]]]
+     * <p>
+     * When no tick rate (or a rate of 0) is given, the ticks are processed as fast as possible.
+     * When no parallelism is given, the file is loaded and the chains are ticked on the main
+     * thread. When a snapshot file is given, a snapshot is written to it every snapshot_interval
+     * ticks, and if the file already exists the simulation is resumed from it instead of starting
+     * from the save file.
+     * @param args String array of command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 6 || args.length == 5) {
+            System.err.println("Usage: save_file ticks "
+                    + "[ticks_per_second [parallelism [snapshot_file snapshot_interval]]]");
+            System.err.println("Example: saves/grid1.txt 1000000 0 8 saves/grid1.bin 100000");
+            System.exit(1);
+        }
+
+        int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        Path snapshot = args.length > 4 ? Path.of(args[4]) : null;
+
+        SimulationEngine engine;
+        try {
+            if (snapshot != null && Files.exists(snapshot)) {
+                engine = SimulationEngine.resume(snapshot);
+                System.out.printf("Resumed from tick %d%n", engine.getTickCount());
+            } else {
+                GameLoader loader = new GameLoader();
+                loader.setParallelism(parallelism);
+                GameGrid gameGrid = loader.read(Path.of(args[0]));
+                engine = new SimulationEngine(gameGrid);
+            }
+        } catch (IOException | FileFormatException e) {
+            System.err.println("File was incorrectly formatted");
+            e.printStackTrace();
+            return;
+        }
+
+        long ticks = Long.parseLong(args[1]);
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        engine.setParallelism(parallelism);
+        if (snapshot != null) {
+            engine.setSnapshots(snapshot, Long.parseLong(args[5]));
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (rate > 0) {
+                engine.run(ticks, rate);
+            } else {
+                engine.step(ticks);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            engine.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double seconds = (double) elapsed / TimeUnit.SECONDS.toNanos(1);
+        System.out.printf("Processed %d ticks over %d chains in %.3f s (%.1f ticks/s)%n",
+                engine.getTickCount(), engine.getChainCount(), seconds,
+                engine.getTickCount() / seconds);
+    }
+}
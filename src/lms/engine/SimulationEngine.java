@@ -0,0 +1,516 @@
+package lms.engine;
+
+import lms.exceptions.BadStateException;
+import lms.exceptions.FileFormatException;
+import lms.grid.GameGrid;
+import lms.io.BinaryGameLoader;
+import lms.io.SaveImage;
+import lms.logistics.Transport;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Headless simulation engine responsible for advancing the state of a GameGrid. The engine owns
+ * the grid it simulates and has no dependency on any GUI toolkit, so it can be driven by batch
+ * jobs as fast as the CPU allows, paced to a target tick rate, or by the GUI's Controller.
+ * <p>
+ * The chains of the grid (a Producer, along its belts, to a Receiver) are compiled into a
+ * TickSchedule once and replayed on every tick. The schedule is recompiled automatically when a
+ * GridComponent is set on the grid; changes made only to the links between existing nodes must
+ * be reported through invalidate().
+ * <p>
+ * With the ARRAYS backend the chains are ticked in a ChainKernel, which is loaded from the nodes
+ * at the start of each call to step() and written back to them at its end, so the nodes are
+ * always up to date between calls.
+ * <p>
+ * Chains never share nodes, so with a parallelism greater than one the chains are split into work
+ * units of similar size and ticked on a ForkJoinPool. Every unit finishes a tick before the next
+ * tick is started, so the tick count is always consistent with the state of the nodes.
+ * <p>
+ * The engine can write a snapshot of the grid and its state in the binary save format every given
+ * number of ticks. The state is captured between ticks on the ticking thread, which only copies
+ * the Item and counter of every node, and the snapshot is written on a background thread so that
+ * ticking carries on meanwhile. A simulation can then be resumed from its latest snapshot with
+ * resume().
+ * <p>
+ * A view of the grid can ask for the nodes whose Item changed since it last asked through
+ * forEachChanged(), so it only has to update those nodes after each tick. Once changes have been
+ * asked for, every node is checked for a change at the end of each call to step().
+ * @see TickSchedule
+ * @see ChainKernel
+ */
+public class SimulationEngine {
+    /** The number of work units created per thread when ticking in parallel. */
+    private static final int UNITS_PER_THREAD = 4;
+
+    /** The grid that is being simulated. */
+    private final GameGrid grid;
+
+    /** The compiled chains of the grid, or null if it needs to be recompiled. */
+    private TickSchedule schedule;
+
+    /** The modification count of the grid when the schedule was compiled. */
+    private int compiledAt;
+
+    /** The backend used to tick the chains. */
+    private Backend backend;
+
+    /** The kernel built from the current schedule, or null if it has not been built. */
+    private ChainKernel kernel;
+
+    /** The nodes whose Item changed since they were last reported, or null if no changes have
+     * been asked for since the schedule was compiled. */
+    private ChangeLog changes;
+
+    /** The pool used to tick chains in parallel, or null to tick on the calling thread. */
+    private ForkJoinPool pool;
+
+    /** The chain ranges of each work unit for the current schedule, or null if not computed. */
+    private int[] units;
+
+    /** The number of ticks that have been processed since the engine was created. */
+    private long tickCount;
+
+    /** The file snapshots are written to, or null if snapshots are disabled. */
+    private java.nio.file.Path snapshotFile;
+
+    /** The number of ticks between snapshots. */
+    private long snapshotInterval;
+
+    /** The layout of the grid captured for the current schedule, or null if not captured. */
+    private SaveImage layout;
+
+    /** The thread snapshots are written on, or null if no snapshot has been taken. */
+    private ExecutorService snapshotWriter;
+
+    /** The snapshot being written, or null if none has been taken. */
+    private Future<?> pendingSnapshot;
+
+    /**
+     * Constructs a new SimulationEngine for the given grid, building its tick schedule.
+     * @param grid the GameGrid to simulate.
+     * @throws IllegalArgumentException if the grid is null.
+     */
+    public SimulationEngine(GameGrid grid) throws IllegalArgumentException {
+        this(grid, 0);
+    }
+
+    /**
+     * Constructs a new SimulationEngine for the given grid, which has already been simulated for
+     * the given number of ticks.
+     * @param grid the GameGrid to simulate.
+     * @param tickCount the number of ticks already processed.
+     * @throws IllegalArgumentException if the grid is null or the tick count is negative.
+     */
+    public SimulationEngine(GameGrid grid, long tickCount) throws IllegalArgumentException {
+        if (grid == null || tickCount < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.grid = grid;
+        this.tickCount = tickCount;
+        this.backend = Backend.OBJECTS;
+        getSchedule();
+    }
+
+    /**
+     * Resumes a simulation from a snapshot, or any other binary save. The grid, the state of its
+     * nodes and the tick count are restored as they were when the snapshot was taken.
+     * @param snapshot the path of the snapshot file.
+     * @return a new SimulationEngine for the restored grid.
+     * @throws IOException if there is an error reading the snapshot.
+     * @throws FileFormatException if the snapshot is not a valid binary save.
+     */
+    public static SimulationEngine resume(java.nio.file.Path snapshot)
+            throws IOException, FileFormatException {
+        BinaryGameLoader loader = new BinaryGameLoader();
+        GameGrid grid = loader.read(snapshot);
+        return new SimulationEngine(grid, loader.getTickCount());
+    }
+
+    /**
+     * Accessor method to get the grid that is being simulated.
+     * @return the GameGrid owned by this engine.
+     */
+    public GameGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Accessor method to get the number of ticks processed by this engine.
+     * @return the number of ticks processed since the engine was created.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Accessor method to get the number of chains that are ticked each tick.
+     * @return the number of chains in the tick schedule.
+     */
+    public int getChainCount() {
+        return getSchedule().getChainCount();
+    }
+
+    /**
+     * Accessor method to get the backend used to tick the chains.
+     * @return the current Backend.
+     */
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Sets the backend used to tick the chains for all following ticks.
+     * @param backend the Backend to use.
+     * @throws IllegalArgumentException if the backend is null.
+     */
+    public void setBackend(Backend backend) throws IllegalArgumentException {
+        if (backend == null) {
+            throw new IllegalArgumentException();
+        }
+        this.backend = backend;
+    }
+
+    /**
+     * Accessor method to get the number of threads used to tick the chains.
+     * @return the parallelism of this engine, 1 if chains are ticked on the calling thread.
+     */
+    public int getParallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    /**
+     * Sets the number of threads used to tick the chains for all following ticks. With a
+     * parallelism of 1 the chains are ticked on the thread that calls tick() or step().
+     * @param parallelism the number of threads to tick with.
+     * @throws IllegalArgumentException if the parallelism is less than 1.
+     */
+    public void setParallelism(int parallelism) throws IllegalArgumentException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+        if (parallelism == getParallelism()) {
+            return;
+        }
+
+        stopPool();
+        if (parallelism > 1) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        units = null;
+    }
+
+    /**
+     * Sets the file that snapshots are written to, and the number of ticks between snapshots. A
+     * snapshot is taken whenever the tick count reaches a multiple of the interval, and replaces
+     * the previous snapshot in the file. If the previous snapshot is still being written when the
+     * next is due, the next is skipped rather than holding up ticking.
+     * @param file the path of the file to write snapshots to, or null to stop taking snapshots.
+     * @param interval the number of ticks between snapshots.
+     * @throws IllegalArgumentException if the interval is less than 1.
+     */
+    public void setSnapshots(java.nio.file.Path file, long interval)
+            throws IllegalArgumentException {
+        if (interval < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.snapshotFile = file;
+        this.snapshotInterval = interval;
+    }
+
+    /**
+     * Takes a snapshot of the grid and its state now, and writes it to the snapshot file on a
+     * background thread.
+     * @return true if the snapshot was taken, false if snapshots are disabled or the previous
+     * snapshot is still being written.
+     * @throws IllegalArgumentException if the grid contains a component which cannot be saved.
+     */
+    public boolean snapshot() throws IllegalArgumentException {
+        if (snapshotFile == null || (pendingSnapshot != null && !pendingSnapshot.isDone())) {
+            return false;
+        }
+
+        getSchedule();
+        if (layout == null) {
+            layout = SaveImage.capture(grid);
+        }
+        SaveImage image = layout.withState(tickCount);
+        java.nio.file.Path file = snapshotFile;
+
+        if (snapshotWriter == null) {
+            snapshotWriter = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        pendingSnapshot = snapshotWriter.submit(() -> {
+            try {
+                image.write(file);
+            } catch (IOException e) {
+                System.err.println("Snapshot could not be written:" + e);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * A helper method used to check whether a snapshot is due after the current tick.
+     * @return true if a snapshot should be taken, false otherwise.
+     */
+    private boolean snapshotDue() {
+        return snapshotFile != null && tickCount % snapshotInterval == 0;
+    }
+
+    /**
+     * Stops the threads used to tick in parallel, if any, and waits for any snapshot that is being
+     * written to finish. The engine can still be ticked afterwards, on the calling thread, until
+     * the parallelism is set again.
+     */
+    public void shutdown() {
+        stopPool();
+        if (snapshotWriter != null) {
+            snapshotWriter.shutdown();
+            try {
+                snapshotWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            snapshotWriter = null;
+        }
+    }
+
+    /**
+     * A helper method used to stop the threads used to tick in parallel, if any.
+     */
+    private void stopPool() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Discards the compiled tick schedule so that it is rebuilt before the next tick. This must
+     * be called after changing the inputs or outputs of nodes on the grid.
+     */
+    public void invalidate() {
+        schedule = null;
+        changes = null;
+        kernel = null;
+        units = null;
+        layout = null;
+    }
+
+    /**
+     * Accessor method to get the tick schedule, compiling it first if it has been invalidated or
+     * the grid has been modified since it was compiled.
+     * @return the up to date TickSchedule for the grid.
+     */
+    public TickSchedule getSchedule() {
+        if (schedule == null || compiledAt != grid.getModificationCount()) {
+            compiledAt = grid.getModificationCount();
+            schedule = TickSchedule.compile(grid);
+            changes = null;
+            kernel = null;
+            units = null;
+            layout = null;
+        }
+        return schedule;
+    }
+
+    /**
+     * Accessor method to get the kernel for the current tick schedule, building it first if the
+     * schedule has changed since it was built. The kernel is loaded with the state of the nodes.
+     * @return the ChainKernel for the up to date tick schedule.
+     */
+    private ChainKernel getKernel() {
+        TickSchedule current = getSchedule();
+        if (kernel == null) {
+            kernel = new ChainKernel(current);
+        } else {
+            kernel.load();
+        }
+        return kernel;
+    }
+
+    /**
+     * Advances the simulation by a single tick. Every chain is ticked from its tail back to its
+     * head, so items only move into spaces that were freed earlier in the same tick. A chain that
+     * reaches a bad state is reported and skipped without stopping the remaining chains.
+     */
+    public void tick() {
+        step(1);
+    }
+
+    /**
+     * Advances the simulation by the given number of ticks as fast as possible, taking snapshots
+     * as they fall due.
+     * @param ticks the number of ticks to process.
+     * @requires ticks &gt;= 0
+     */
+    public void step(long ticks) {
+        if (ticks <= 0) {
+            return;
+        }
+
+        if (backend == Backend.ARRAYS) {
+            ChainKernel current = getKernel();
+            try {
+                for (long i = 0; i < ticks; i++) {
+                    tickAll(current);
+                    if (snapshotDue()) {
+                        // The nodes only hold the state once it is stored from the kernel
+                        current.store();
+                        snapshot();
+                    }
+                }
+            } finally {
+                current.store();
+            }
+        } else {
+            TickSchedule current = getSchedule();
+            for (long i = 0; i < ticks; i++) {
+                tickAll(current);
+                if (snapshotDue()) {
+                    snapshot();
+                }
+            }
+        }
+
+        if (changes != null) {
+            changes.check();
+        }
+    }
+
+    /**
+     * Passes every scheduled node whose Item has changed since the last call to the given action,
+     * so that a view of the grid only has to update the nodes that changed. Every scheduled node
+     * is passed on the first call, and on the first call after the schedule is recompiled, as the
+     * changes made before then are not known.
+     * @param action the action to perform for each changed node.
+     */
+    public void forEachChanged(Consumer<? super Transport> action) {
+        TickSchedule current = getSchedule();
+        if (changes == null) {
+            changes = new ChangeLog(current);
+        }
+        changes.report(action);
+    }
+
+    /**
+     * A helper method used to tick every chain of the given backend once, in parallel if the
+     * engine has a pool.
+     * @param ticker the backend to tick the chains of.
+     */
+    private void tickAll(ChainTicker ticker) {
+        if (pool == null) {
+            tickChains(ticker, 0, ticker.getChainCount());
+        } else {
+            if (units == null) {
+                units = getSchedule().partition(pool.getParallelism() * UNITS_PER_THREAD);
+            }
+            pool.invoke(new TickTask(ticker, units, 0, units.length - 1));
+        }
+        tickCount++;
+    }
+
+    /**
+     * A helper method used to tick a range of chains of the given backend once. A chain that
+     * reaches a bad state is reported and skipped without stopping the remaining chains.
+     * @param ticker the backend to tick the chains of.
+     * @param first the first chain to tick (inclusive).
+     * @param last the last chain to tick (exclusive).
+     */
+    private static void tickChains(ChainTicker ticker, int first, int last) {
+        for (int chain = first; chain < last; chain++) {
+            try {
+                ticker.tickChain(chain);
+            } catch (BadStateException bse) {
+                System.err.println("Tick could not be processed:" + bse);
+            }
+        }
+    }
+
+    /**
+     * Fork-join task which ticks a range of work units, splitting the range in half until a
+     * single unit remains.
+     */
+    private static class TickTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** The backend to tick the chains of. */
+        private final ChainTicker ticker;
+
+        /** The chain ranges of every work unit. */
+        private final int[] units;
+
+        /** The first work unit to tick (inclusive). */
+        private final int first;
+
+        /** The last work unit to tick (exclusive). */
+        private final int last;
+
+        /**
+         * Constructs a new TickTask for the given range of work units.
+         * @param ticker the backend to tick the chains of.
+         * @param units the chain ranges of every work unit.
+         * @param first the first work unit to tick (inclusive).
+         * @param last the last work unit to tick (exclusive).
+         */
+        TickTask(ChainTicker ticker, int[] units, int first, int last) {
+            this.ticker = ticker;
+            this.units = units;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first == 1) {
+                tickChains(ticker, units[first], units[last]);
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            invokeAll(new TickTask(ticker, units, first, middle),
+                    new TickTask(ticker, units, middle, last));
+        }
+    }
+
+    /**
+     * Advances the simulation by the given number of ticks, sleeping between ticks so that no
+     * more than the given number of ticks are processed per second. If ticking falls behind the
+     * target rate, the following ticks are processed without sleeping until it catches up.
+     * @param ticks the number of ticks to process.
+     * @param ticksPerSecond the target tick rate.
+     * @throws IllegalArgumentException if the target tick rate is not positive.
+     * @throws InterruptedException if the thread is interrupted while waiting for the next tick.
+     */
+    public void run(long ticks, double ticksPerSecond)
+            throws IllegalArgumentException, InterruptedException {
+        if (!(ticksPerSecond > 0)) {
+            throw new IllegalArgumentException();
+        }
+
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / ticksPerSecond);
+        long deadline = System.nanoTime();
+
+        for (long i = 0; i < ticks; i++) {
+            tick();
+            deadline += period;
+
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+}
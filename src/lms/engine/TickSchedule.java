@@ -0,0 +1,150 @@
+package lms.engine;
+
+import lms.exceptions.BadStateException;
+import lms.grid.GameGrid;
+import lms.logistics.Path;
+import lms.logistics.Transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The compiled chain topology of a GameGrid. Every chain (a Producer, along its belts, to a
+ * Receiver) is flattened into a single array of Transport references, with each chain stored
+ * tail first so that it can be ticked by a straight walk over the array. The schedule is a
+ * snapshot of the links at the time it was compiled and must be recompiled if they change.
+ */
+public class TickSchedule implements ChainTicker {
+    /** Every scheduled Transport node, chain by chain, each chain ordered tail to head. */
+    private final Transport[] order;
+
+    /** The index in order at which each chain starts, followed by the length of order. */
+    private final int[] chainStart;
+
+    /**
+     * Constructs a new TickSchedule from the flattened node order and chain offsets.
+     * @param order every scheduled node, each chain ordered tail to head.
+     * @param chainStart the index at which each chain starts, followed by order.length.
+     */
+    private TickSchedule(Transport[] order, int[] chainStart) {
+        this.order = order;
+        this.chainStart = chainStart;
+    }
+
+    /**
+     * Compiles the tick schedule for the given grid. A chain is started from every Transport
+     * node without an output and followed back through its inputs, so nodes that only form a
+     * closed loop are never scheduled.
+     * @param grid the GameGrid to compile.
+     * @return the compiled TickSchedule for the grid.
+     */
+    public static TickSchedule compile(GameGrid grid) {
+        List<Transport> nodes = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        Set<Transport> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        grid.forEachTransport(tail -> {
+            if (tail.getOutput() != null) {
+                return;
+            }
+
+            starts.add(nodes.size());
+            Transport node = tail;
+            // Stops at the head, or at a node already scheduled if the inputs loop back on
+            // themselves, which would otherwise never terminate
+            while (node != null && visited.add(node)) {
+                nodes.add(node);
+                Path input = node.getInput();
+                node = input == null ? null : input.getNode();
+            }
+        });
+
+        int[] chainStart = new int[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) {
+            chainStart[i] = starts.get(i);
+        }
+        chainStart[starts.size()] = nodes.size();
+
+        return new TickSchedule(nodes.toArray(new Transport[0]), chainStart);
+    }
+
+    /**
+     * Accessor method to get the number of chains in this schedule.
+     * @return the number of chains in this schedule.
+     */
+    @Override
+    public int getChainCount() {
+        return chainStart.length - 1;
+    }
+
+    /**
+     * Accessor method to get the total number of nodes in this schedule.
+     * @return the number of scheduled Transport nodes across all chains.
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * Accessor method to get a scheduled node by its position in the schedule.
+     * @param index the position of the node, where each chain is ordered tail to head.
+     * @return the Transport node at the given position.
+     * @requires 0 &lt;= index &lt; size()
+     */
+    public Transport getNode(int index) {
+        return order[index];
+    }
+
+    /**
+     * Accessor method to get the position in the schedule at which a chain starts.
+     * @param chain the index of the chain, or getChainCount() for the end of the last chain.
+     * @return the position of the tail of the given chain.
+     * @requires 0 &lt;= chain &lt;= getChainCount()
+     */
+    public int getChainStart(int chain) {
+        return chainStart[chain];
+    }
+
+    /**
+     * Splits the chains of this schedule into consecutive ranges holding roughly the same number
+     * of nodes, so that each range is a similar amount of work to tick. A range may be empty if a
+     * single chain holds more than its share of the nodes.
+     * @param parts the number of ranges to split the chains into.
+     * @return array of length ranges + 1, where range k covers the chains from element k
+     * (inclusive) to element k + 1 (exclusive).
+     * @requires parts &gt; 0
+     */
+    public int[] partition(int parts) {
+        int chains = getChainCount();
+        int ranges = Math.max(1, Math.min(parts, chains));
+        int[] bounds = new int[ranges + 1];
+
+        int chain = 0;
+        for (int k = 1; k < ranges; k++) {
+            long target = (long) order.length * k / ranges;
+            while (chain < chains && chainStart[chain] < target) {
+                chain++;
+            }
+            bounds[k] = chain;
+        }
+        bounds[ranges] = chains;
+        return bounds;
+    }
+
+    /**
+     * Ticks every node of the given chain, from its tail back to its head.
+     * @param chain the index of the chain to tick.
+     * @throws BadStateException if a node in the chain reaches a bad state, in which case the
+     * nodes before it in the chain are not ticked.
+     * @requires 0 &lt;= chain &lt; getChainCount()
+     */
+    @Override
+    public void tickChain(int chain) throws BadStateException {
+        for (int i = chainStart[chain], end = chainStart[chain + 1]; i < end; i++) {
+            order[i].tick();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package lms.grid;
+
+/**
+ * A functional interface for visiting the cells of a GameGrid, receiving the axial components of
+ * each cell's Coordinate as primitives so that no Coordinate needs to be created.
+ */
+@FunctionalInterface
+public interface CellVisitor {
+
+    /**
+     * Visits a single cell of the grid.
+     *
+     * @param q the q component of the cell's Coordinate.
+     * @param r the r component of the cell's Coordinate.
+     * @param component the GridComponent at the cell.
+     */
+    void visit(int q, int r, GridComponent component);
+}
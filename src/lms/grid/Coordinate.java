@@ -1,8 +1,5 @@
 package lms.grid;
 
-
-import java.util.*;
-
 /**
  * This is the Coordinate class, which is used to represent coordinates on a hexagonal grid.
  * (If you have read the GameLoader class,
@@ -24,38 +21,44 @@ import java.util.*;
  * the implementation approach "doesn't matter". </p>
  * <p>When loading a grid, you will elect a point as the origin,
  * and then use the methods provided to navigate around and generate new Coordinates.</p>
+ * <p>Internally the q and r components are packed into a single long (s is always -q - r),
+ * so Coordinates can be compared, hashed and offset without allocating. The packed form is also
+ * available to callers that want to avoid creating Coordinates at all.</p>
  *
- * @version 1.1
+ * @version 1.2
  * @provided
  */
 public class Coordinate {
 
     /**
-     * The orientation of the coordinate system
+     * The q component in the high 32 bits and the r component in the low 32 bits
      */
-    private final int cordQ;
+    private final long packed;
 
     /**
-     * The orientation of the coordinate system
+     * The change in q when moving one step in each orientation, indexed by ordinal
      */
-    private final int cordR;
+    private static final int[] OFFSET_Q = new int[Orientation.values().length];
 
     /**
-     * The orientation of the coordinate system
+     * The change in r when moving one step in each orientation, indexed by ordinal
      */
-    private final int cordS;
+    private static final int[] OFFSET_R = new int[Orientation.values().length];
 
     /**
-     * A Map that tracks how to calculate each of the cardinal directions of the coordinate system.
+     * The orientation of each unit vector, indexed by (unit q + 1) * 3 + (unit r + 1), or null
+     * where the unit vector is not one of the six orientations
      */
-    private static final Map<Orientation, Coordinate> directions = Map.ofEntries(
-            Map.entry(Orientation.TOP_LEFT, new Coordinate(0, -1, +1)),
-            Map.entry(Orientation.TOP_RIGHT, new Coordinate(+1, -1, 0)),
-            Map.entry(Orientation.RIGHT, new Coordinate(+1, 0, -1)),
-            Map.entry(Orientation.BOTTOM_RIGHT, new Coordinate(0, +1, -1)),
-            Map.entry(Orientation.BOTTOM_LEFT, new Coordinate(-1, +1, 0)),
-            Map.entry(Orientation.LEFT, new Coordinate(-1, 0, +1))
-    );
+    private static final Orientation[] DIRECTIONS = new Orientation[9];
+
+    static {
+        setOffset(Orientation.TOP_LEFT, 0, -1);
+        setOffset(Orientation.TOP_RIGHT, +1, -1);
+        setOffset(Orientation.RIGHT, +1, 0);
+        setOffset(Orientation.BOTTOM_RIGHT, 0, +1);
+        setOffset(Orientation.BOTTOM_LEFT, -1, +1);
+        setOffset(Orientation.LEFT, -1, 0);
+    }
 
     /**
      * This should be the origin Coordinate,
@@ -72,11 +75,13 @@ public class Coordinate {
      * @param x first arg
      * @param y second arg
      * @param z third arg
+     * @throws IllegalArgumentException if x + y + z != 0
      */
-    public Coordinate(int x, int y, int z) {
-        this.cordQ = x;
-        this.cordR = y;
-        this.cordS = z;
+    public Coordinate(int x, int y, int z) throws IllegalArgumentException {
+        this(x, y);
+        if (x + y + z != 0) {
+            throw new IllegalArgumentException("Coordinate components must sum to 0");
+        }
     }
 
     /***
@@ -85,17 +90,136 @@ public class Coordinate {
      * @param y second arg, z is defined as -x - y
      */
     public Coordinate(int x, int y) {
-        this(x, y, -x - y);
+        this(pack(x, y));
+    }
+
+    /**
+     * Creates a Coordinate from its packed representation.
+     * @param packed the packed q and r components
+     */
+    private Coordinate(long packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * Creates a Coordinate from its packed representation.
+     *
+     * @param packed the packed q and r components, as returned by pack() or toPacked().
+     * @return the Coordinate with the packed components.
+     */
+    public static Coordinate fromPacked(long packed) {
+        return new Coordinate(packed);
+    }
+
+    /**
+     * Packs the q and r components of a Coordinate into a single long.
+     *
+     * @param q the q component.
+     * @param r the r component.
+     * @return the packed components.
+     */
+    public static long pack(int q, int r) {
+        return ((long) q << 32) | (r & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the q component of a packed Coordinate.
+     *
+     * @param packed the packed q and r components.
+     * @return the q component.
+     */
+    public static int unpackQ(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * Returns the r component of a packed Coordinate.
+     *
+     * @param packed the packed q and r components.
+     * @return the r component.
+     */
+    public static int unpackR(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Returns the packed Coordinate one step from the given packed Coordinate in the given
+     * orientation, without creating a Coordinate.
+     *
+     * @param packed the packed q and r components.
+     * @param orientation the orientation to step in.
+     * @return the packed components of the neighbour.
+     */
+    public static long neighbour(long packed, Orientation orientation) {
+        return pack(unpackQ(packed) + OFFSET_Q[orientation.ordinal()],
+                unpackR(packed) + OFFSET_R[orientation.ordinal()]);
+    }
+
+    /**
+     * Returns the change in q when moving one step in the given orientation.
+     *
+     * @param orientation the orientation to step in.
+     * @return the change in the q component.
+     */
+    public static int offsetQ(Orientation orientation) {
+        return OFFSET_Q[orientation.ordinal()];
+    }
+
+    /**
+     * Returns the change in r when moving one step in the given orientation.
+     *
+     * @param orientation the orientation to step in.
+     * @return the change in the r component.
+     */
+    public static int offsetR(Orientation orientation) {
+        return OFFSET_R[orientation.ordinal()];
+    }
+
+    /**
+     * Accessor method for the first (q) component of this Coordinate.
+     *
+     * @return the q component of this Coordinate.
+     */
+    public int getQ() {
+        return unpackQ(packed);
+    }
+
+    /**
+     * Accessor method for the second (r) component of this Coordinate.
+     *
+     * @return the r component of this Coordinate.
+     */
+    public int getR() {
+        return unpackR(packed);
     }
 
+    /**
+     * Accessor method for the third (s) component of this Coordinate.
+     *
+     * @return the s component of this Coordinate.
+     */
+    public int getS() {
+        return -getQ() - getR();
+    }
+
+    /**
+     * Returns the packed representation of this Coordinate.
+     *
+     * @return the q and r components packed into a long.
+     */
+    public long toPacked() {
+        return packed;
+    }
 
     /**
      * Returns the hash code for this Coordinate object.
      *
      * @return the hash code for this Coordinate object.
      */
+    @Override
     public int hashCode() {
-        return Objects.hash(cordQ, cordR, cordS);
+        // Spreads both components over all bits, so neighbouring Coordinates don't collide
+        return Long.hashCode(packed * 0x9E3779B97F4A7C15L);
     }
 
     /**
@@ -114,7 +238,19 @@ public class Coordinate {
         }
 
         Coordinate that = (Coordinate) o;
-        return this.cordQ == that.cordQ && this.cordR == that.cordR && this.cordS == that.cordS;
+        return this.packed == that.packed;
+    }
+
+    /**
+     * Returns the coordinate that is one step from the current coordinate in the given
+     * orientation.
+     *
+     * @param orientation the orientation to step in.
+     * @return The coordinate that is one step
+     * from the current coordinate in the given orientation.
+     */
+    public Coordinate neighbour(Orientation orientation) {
+        return new Coordinate(neighbour(packed, orientation));
     }
 
     /**
@@ -125,7 +261,7 @@ public class Coordinate {
      * to the left of the current coordinate.
      */
     public Coordinate getLeft() {
-        return add(directions.get(Orientation.LEFT));
+        return neighbour(Orientation.LEFT);
     }
 
     /**
@@ -136,7 +272,7 @@ public class Coordinate {
      * to the right of the current coordinate.
      */
     public Coordinate getRight() {
-        return add(directions.get(Orientation.RIGHT));
+        return neighbour(Orientation.RIGHT);
     }
 
     /**
@@ -147,7 +283,7 @@ public class Coordinate {
      * to the top-left of the current coordinate.
      */
     public Coordinate getTopLeft() {
-        return add(directions.get(Orientation.TOP_LEFT));
+        return neighbour(Orientation.TOP_LEFT);
     }
 
     /**
@@ -158,7 +294,7 @@ public class Coordinate {
      * to the top-right of the current coordinate.
      */
     public Coordinate getTopRight() {
-        return add(directions.get(Orientation.TOP_RIGHT));
+        return neighbour(Orientation.TOP_RIGHT);
     }
 
     /**
@@ -169,7 +305,7 @@ public class Coordinate {
      * to the bottom-left of the current coordinate.
      */
     public Coordinate getBottomLeft() {
-        return add(directions.get(Orientation.BOTTOM_LEFT));
+        return neighbour(Orientation.BOTTOM_LEFT);
     }
 
     /**
@@ -180,35 +316,21 @@ public class Coordinate {
      * to the bottom-right of the current coordinate.
      */
     public Coordinate getBottomRight() {
-        return add(directions.get(Orientation.BOTTOM_RIGHT));
+        return neighbour(Orientation.BOTTOM_RIGHT);
     }
 
     /**
-     * Returns a new Coordinate object that is the result of
-     * adding the given vector to this Coordinate object.
+     * Returns the number of steps between this Coordinate and the given Coordinate.
      *
-     * @param vector the vector to add to this Coordinate object.
-     * @return a new Coordinate object that is the result of
-     * adding the given vector to this Coordinate object.
+     * @param coordinate the Coordinate to measure the distance to.
+     * @return the hexagonal distance between the two Coordinates.
      */
-    private Coordinate add(Coordinate vector) {
-        return new Coordinate(cordQ + vector.cordQ, cordR + vector.cordR, cordS + vector.cordS);
-
+    public int distance(Coordinate coordinate) {
+        int dq = coordinate.getQ() - getQ();
+        int dr = coordinate.getR() - getR();
+        return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
     }
 
-    /**
-     * Returns a new Coordinate object that is the result of
-     * subtracting the given vector from this Coordinate object.
-     *
-     * @param vector the vector to subtract from this Coordinate object.
-     * @return a new Coordinate object that is the result of
-     * subtracting the given vector from this Coordinate object.
-     */
-    private Coordinate subtract(Coordinate vector) {
-        return new Coordinate(cordQ - vector.cordQ, cordR - vector.cordR, cordS - vector.cordS);
-    }
-
-
     /**
      * Returns true if the given Coordinate object is a
      * neighbour of this Coordinate object, false otherwise.
@@ -219,8 +341,7 @@ public class Coordinate {
      * neighbour of this Coordinate object, false otherwise.
      */
     public boolean isNeighbour(Coordinate coordinate) {
-        Coordinate vector = subtract(coordinate);
-        return directions.containsValue(vector);
+        return distance(coordinate) == 1;
     }
 
     /**
@@ -233,34 +354,51 @@ public class Coordinate {
      * @ensures Orientation returns is correct as a direct relation
      */
     public Orientation getDirection(Coordinate coordinate) {
+        Orientation orientation = direction(packed, coordinate.packed);
+        if (orientation == null) {
+            throw new RuntimeException("Got incorrect directions from one coordinate");
+        }
+        return orientation;
+    }
+
+    /**
+     * Gets the direction required to travel to get from one packed Coordinate to another, in
+     * constant time and without allocating.
+     *
+     * @param from the packed Coordinate to travel from.
+     * @param to the packed Coordinate to travel to.
+     * @return Orientation direction of travel, or null if the packed Coordinates are equal or
+     * are not in a straight line.
+     */
+    public static Orientation direction(long from, long to) {
 
         /*
-         * vector is the direction you would need to travel to get
+         * the normalised vector is the direction you would need to travel to get
          * from this coordinate to the next
          */
-        Coordinate vector = normalise(coordinate.subtract(this));
+        int dq = unpackQ(to) - unpackQ(from);
+        int dr = unpackR(to) - unpackR(from);
+        int unitQ = Integer.signum(dq);
+        int unitR = Integer.signum(dr);
 
-        List<Orientation> ors = directions.entrySet().stream()
-                .filter(entry -> entry.getValue().equals(vector))
-                .map(Map.Entry::getKey)
-                .toList();
-        if (ors.size() != 1) {
-            throw new RuntimeException("Got incorrect directions from one coordinate");
+        Orientation orientation = DIRECTIONS[(unitQ + 1) * 3 + unitR + 1];
+        // s must point the same way too, otherwise the two are not in a straight line
+        if (orientation == null || Integer.signum(-dq - dr) != -unitQ - unitR) {
+            return null;
         }
-        return ors.get(0);
+        return orientation;
     }
 
     /**
-     * Returns the normalised coordinate
+     * Helper method used to fill in the offset and direction tables.
      *
-     * @param vector Coordinate (a) q r s
-     * @return Coordinate normalised (for getDirection)
-     */
-    private Coordinate normalise(Coordinate vector) {
-        return new Coordinate(
-                vector.cordQ / Math.max(Math.abs(vector.cordQ), 1),
-                vector.cordR / Math.max(Math.abs(vector.cordR), 1),
-                vector.cordS / Math.max(Math.abs(vector.cordS), 1)
-        );
+     * @param orientation the orientation to set the offset of.
+     * @param q the change in q when moving in the orientation.
+     * @param r the change in r when moving in the orientation.
+     */
+    private static void setOffset(Orientation orientation, int q, int r) {
+        OFFSET_Q[orientation.ordinal()] = q;
+        OFFSET_R[orientation.ordinal()] = r;
+        DIRECTIONS[(q + 1) * 3 + r + 1] = orientation;
     }
-}
\ No newline at end of file
+}
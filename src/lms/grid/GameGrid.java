@@ -1,38 +1,113 @@
 package lms.grid;
 
+import lms.logistics.Path;
+import lms.logistics.Transport;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * The GameGrid is responsible for managing the state and initialisation of the game's grid.
  * It provides the Map structure to hold the coordinates of each node in the grid. It also
  * maintains the size of the grid using a range variable. The range value donates how many
  * nodes each hexagonal grid node extends to.
+ * <p>
+ * The cells are stored in a single dense array, row by row (r from -range to range), with the
+ * cells of each row ordered by q. A Coordinate is only boxed when a caller asks for one, the
+ * forEach methods walk the cells without allocating.
+ * <p>
+ * A grid can also be populated lazily from a RowSource, in which case each row is populated the
+ * first time any of its cells is queried or set. Queries over part of the grid, such as looking
+ * up a Coordinate, visiting a ring or a range of rows, only populate the rows they touch, while
+ * queries over the whole grid populate every row. Populating a row does not count as a
+ * modification, as the grid behaves as if every row had been populated from the start.
  *
  * @ass2
- * @version 1.1
+ * @version 1.2
  * <p>
  * Summary: Initializes a grid of the game.
  *
  */
 public class GameGrid {
+    /** All orientations, in declaration order. */
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+    /** The orientations walked in turn to trace a ring, starting from its bottom left corner. */
+    private static final Orientation[] RING = {Orientation.RIGHT, Orientation.TOP_RIGHT,
+        Orientation.TOP_LEFT, Orientation.LEFT, Orientation.BOTTOM_LEFT, Orientation.BOTTOM_RIGHT};
+
     /** The range of this grid, that is the distance from the center of the grid to any of the
      * sides. Grid size can be calculated by range * 2 + 1*/
     private final int range;
 
-    /** A map representing the current GameGrid, with coordinates mapping to the corresponding
-     * GridComponent found at the coordinate. */
-    private final Map<Coordinate, GridComponent> map;
+    /** The GridComponent of every cell in the hexagon, stored row by row. */
+    private final GridComponent[] cells;
+
+    /** The index in cells of the first cell of each row, followed by the number of cells. */
+    private final int[] rowStart;
+
+    /** A read-only Map view of cells, keyed by Coordinate. */
+    private final Map<Coordinate, GridComponent> view;
+
+    /** The number of times a GridComponent has been set on this grid, used by consumers that
+     * cache information derived from the grid to detect that it has changed. */
+    private int modificationCount;
+
+    /** The source rows are populated from, or null once every row has been populated. */
+    private RowSource source;
+
+    /** Whether each row has been populated, or null if the grid is not populated lazily. */
+    private boolean[] populated;
+
+    /** The number of rows that have not been populated yet. */
+    private int unpopulated;
+
+    /** Whether a row is being populated, while which setting a cell is not a modification. */
+    private boolean populating;
 
     /**
-     * Constructs a new GameGrid with the given range, stored in a Map. A private helper method
-     * generate() is used to populate the initial map.
+     * Constructs a new GameGrid with the given range, stored in a dense array. A private helper
+     * method generate() is used to populate the initial cells.
      * @param range the range of the grid.
      * @requires range > 0.
      */
     public GameGrid(int range) {
         this.range = range;
-        this.map = generate(range);
+
+        int rows = Math.max(range * 2 + 1, 0);
+        this.rowStart = new int[rows + 1];
+        for (int row = 0; row < rows; row++) {
+            rowStart[row + 1] = rowStart[row] + rowWidth(row - range);
+        }
+
+        this.cells = generate(rowStart[rows]);
+        this.view = new GridView();
+    }
+
+    /**
+     * Constructs a new GameGrid with the given range, whose rows are populated lazily from the
+     * given source as they are first queried.
+     * @param range the range of the grid.
+     * @param source the RowSource to populate the rows from.
+     * @throws IllegalArgumentException if the source is null.
+     * @requires range > 0.
+     */
+    public GameGrid(int range, RowSource source) throws IllegalArgumentException {
+        this(range);
+        if (source == null) {
+            throw new IllegalArgumentException();
+        }
+        this.source = source;
+        this.populated = new boolean[rowStart.length - 1];
+        this.unpopulated = populated.length;
     }
 
     /**
@@ -47,9 +122,37 @@ public class GameGrid {
      * Set the GridComponent at the given Coordinate on the map.
      * @param coordinate the Coordinate of the GridComponent.
      * @param component the GridComponent to be set.
+     * @throws IllegalArgumentException if the Coordinate is not within the range of the grid.
      */
-    public void setCoordinate(Coordinate coordinate, GridComponent component) {
-        map.put(coordinate, component);  // Overrides anything that was previously at Coordinate
+    public void setCoordinate(Coordinate coordinate, GridComponent component)
+            throws IllegalArgumentException {
+        int index = indexOf(coordinate.getQ(), coordinate.getR());
+        if (index < 0) {
+            throw new IllegalArgumentException("Coordinate is outside of the grid");
+        }
+        populate(coordinate.getR(), coordinate.getR());
+        cells[index] = component;  // Overrides anything that was previously at Coordinate
+        if (!populating) {
+            modificationCount++;
+        }
+    }
+
+    /**
+     * Checks whether the row at the given r has been populated. Every row of a grid that is not
+     * populated lazily is always populated.
+     * @param r the r component of the row.
+     * @return true if the row has been populated, false otherwise.
+     */
+    public boolean isPopulated(int r) {
+        return populated == null || r < -range || r > range || populated[r + range];
+    }
+
+    /**
+     * Accessor method to get the number of times a GridComponent has been set on this grid.
+     * @return the modification count of this grid.
+     */
+    public int getModificationCount() {
+        return modificationCount;
     }
 
     /**
@@ -57,31 +160,334 @@ public class GameGrid {
      * @return Map a copy of the grid of the game.
      */
     public Map<Coordinate, GridComponent> getGrid() {
-        return new HashMap<>(map);
+        return new HashMap<>(view);
+    }
+
+    /**
+     * get a read-only view of the grid of the game. The view is not a copy, so it reflects any
+     * later changes to the grid, and looking up a Coordinate in it takes constant time.
+     * @return Map an unmodifiable view of the grid of the game.
+     */
+    public Map<Coordinate, GridComponent> getView() {
+        return view;
+    }
+
+    /**
+     * Visits every cell of the grid, row by row from the top.
+     * @param visitor the CellVisitor to call for each cell.
+     */
+    public void forEachCell(CellVisitor visitor) {
+        forEachCellInRows(-range, range, visitor);
+    }
+
+    /**
+     * Visits every cell of the rows from firstR to lastR (inclusive), row by row from the top.
+     * Rows outside of the grid are skipped.
+     * @param firstR the r component of the first row to visit.
+     * @param lastR the r component of the last row to visit.
+     * @param visitor the CellVisitor to call for each cell.
+     */
+    public void forEachCellInRows(int firstR, int lastR, CellVisitor visitor) {
+        firstR = Math.max(firstR, -range);
+        lastR = Math.min(lastR, range);
+        populate(firstR, lastR);
+        for (int r = firstR; r <= lastR; r++) {
+            int index = rowStart[r + range];
+            int firstQ = rowFirstQ(r);
+            int lastQ = firstQ + rowWidth(r);
+            for (int q = firstQ; q < lastQ; q++) {
+                visitor.visit(q, r, cells[index++]);
+            }
+        }
+    }
+
+    /**
+     * Calls the given action for every Transport node on the grid, row by row from the top.
+     * @param action the Consumer to call for each Transport.
+     */
+    public void forEachTransport(Consumer<? super Transport> action) {
+        populate(-range, range);
+        for (GridComponent component : cells) {
+            if (component instanceof Transport transport) {
+                action.accept(transport);
+            }
+        }
+    }
+
+    /**
+     * Visits every cell of the grid that is exactly the given distance from the center, that is
+     * the ring of hexagons of that radius around it. Cells of the ring that fall outside of the
+     * grid are skipped.
+     * @param center the Coordinate at the center of the ring.
+     * @param radius the distance of the ring from the center, 0 visits only the center.
+     * @param visitor the CellVisitor to call for each cell.
+     * @requires radius &gt;= 0
+     */
+    public void forEachCellInRing(Coordinate center, int radius, CellVisitor visitor) {
+        populate(center.getR() - radius, center.getR() + radius);
+        if (radius == 0) {
+            visitIfPresent(center.getQ(), center.getR(), visitor);
+            return;
+        }
+
+        int q = center.getQ() + Coordinate.offsetQ(Orientation.BOTTOM_LEFT) * radius;
+        int r = center.getR() + Coordinate.offsetR(Orientation.BOTTOM_LEFT) * radius;
+        for (Orientation side : RING) {
+            for (int step = 0; step < radius; step++) {
+                visitIfPresent(q, r, visitor);
+                q += Coordinate.offsetQ(side);
+                r += Coordinate.offsetR(side);
+            }
+        }
+    }
+
+    /**
+     * Calls the given action for each neighbour of the given Coordinate that is on the grid,
+     * with the orientation of the neighbour relative to the Coordinate.
+     * @param coordinate the Coordinate to visit the neighbours of.
+     * @param action the BiConsumer to call with the orientation and component of each neighbour.
+     */
+    public void forEachNeighbour(Coordinate coordinate,
+                                 BiConsumer<Orientation, GridComponent> action) {
+        populate(coordinate.getR() - 1, coordinate.getR() + 1);
+        for (Orientation orientation : ORIENTATIONS) {
+            int index = indexOf(coordinate.getQ() + Coordinate.offsetQ(orientation),
+                    coordinate.getR() + Coordinate.offsetR(orientation));
+            if (index >= 0) {
+                action.accept(orientation, cells[index]);
+            }
+        }
+    }
+
+    /**
+     * Returns the direction of every link between Transport nodes on the grid, computed in a
+     * single pass so that a renderer can cache them rather than looking up each one.
+     * @return array indexed by Transport id, where element [id][0] is the orientation from the
+     * node to its input and element [id][1] is the orientation from the node to its output. An
+     * orientation is null if the node has no such link, or the linked node is not on the grid or
+     * not in a straight line from it. Ids without a node on the grid have a null element.
+     * @requires every Transport on the grid has a unique, non-negative id
+     */
+    public Orientation[][] getLinkDirections() {
+        int[] maxId = {-1};
+        forEachTransport(transport -> maxId[0] = Math.max(maxId[0], transport.getId()));
+
+        long[] positions = new long[maxId[0] + 1];
+        boolean[] placed = new boolean[maxId[0] + 1];
+        forEachCell((q, r, component) -> {
+            if (component instanceof Transport transport) {
+                positions[transport.getId()] = Coordinate.pack(q, r);
+                placed[transport.getId()] = true;
+            }
+        });
+
+        Orientation[][] directions = new Orientation[maxId[0] + 1][];
+        forEachTransport(transport -> {
+            int id = transport.getId();
+            directions[id] = new Orientation[] {
+                linkDirection(positions, placed, id, transport.getInput()),
+                linkDirection(positions, placed, id, transport.getOutput())
+            };
+        });
+        return directions;
+    }
+
+    /**
+     * A helper method used to find the direction from a placed Transport to a linked node.
+     * @param positions the packed Coordinate of each placed Transport, indexed by id.
+     * @param placed whether each id has a Transport on the grid.
+     * @param id the id of the Transport the link is from.
+     * @param link the Path of the linked node, or null.
+     * @return the direction of the link, or null if there is no link or it has no direction.
+     */
+    private static Orientation linkDirection(long[] positions, boolean[] placed, int id,
+                                             Path link) {
+        if (link == null) {
+            return null;
+        }
+        int other = link.getNode().getId();
+        if (other < 0 || other >= placed.length || !placed[other]) {
+            return null;
+        }
+        return Coordinate.direction(positions[id], positions[other]);
+    }
+
+    /**
+     * A helper method used to visit a single cell if it is on the grid.
+     * @param q the q component of the cell.
+     * @param r the r component of the cell.
+     * @param visitor the CellVisitor to call if the cell is on the grid.
+     */
+    private void visitIfPresent(int q, int r, CellVisitor visitor) {
+        int index = indexOf(q, r);
+        if (index >= 0) {
+            visitor.visit(q, r, cells[index]);
+        }
+    }
+
+    /**
+     * A helper method used to populate the rows from firstR to lastR (inclusive) that have not
+     * been populated yet, if the grid is populated lazily. Rows outside of the grid are skipped.
+     * Once every row has been populated the source is released.
+     * @param firstR the r component of the first row to populate.
+     * @param lastR the r component of the last row to populate.
+     */
+    private void populate(int firstR, int lastR) {
+        if (source == null) {
+            return;
+        }
+        for (int r = Math.max(firstR, -range); r <= Math.min(lastR, range); r++) {
+            if (populated[r + range]) {
+                continue;
+            }
+            // Marked first, so that the source can set the cells of the row it is populating
+            populated[r + range] = true;
+            unpopulated--;
+            boolean nested = populating;
+            populating = true;
+            try {
+                source.populate(this, r);
+            } finally {
+                populating = nested;
+            }
+        }
+        if (unpopulated == 0) {
+            source = null;
+        }
     }
 
     /**
      * Helper method:
-     * Generates a grid with the given range, starting from the origin (the centre) and maintaining
-     * a balanced shape for the entire mapping structure.
-     * This has been provided to support you with the hexagonal coordinate logic.
-     * @param range The range of the map.
-     * @provided
-     */
-    private Map<Coordinate, GridComponent> generate(int range) {
-        Map<Coordinate, GridComponent> tempGrid = new HashMap<>();
-        for (int q = -range; q <= range; q++) { // From negative to positive (inclusive)
-            for (int r = -range; r <= range; r++) { // From negative to positive (inclusive)
-                for (int s = -range; s <= range; s++) { // From negative to positive (inclusive)
-                    if (q + r + s == 0) {
-                        // Useful to default to error
-                        tempGrid.put(new Coordinate(q, r, s), () -> "ERROR");
-
-                    }
+     * Generates the cells of a grid, every cell defaulting to Tile.UNSET until it is set.
+     * @param size the number of cells in the hexagon.
+     * @return array of the given size containing the initial component of every cell.
+     */
+    private static GridComponent[] generate(int size) {
+        GridComponent[] tempCells = new GridComponent[size];
+        Arrays.fill(tempCells, Tile.UNSET); // Useful to default to error
+        return tempCells;
+    }
+
+    /**
+     * A helper method used to get the number of cells in the row at the given r.
+     * @param r the r component of the row.
+     * @return the number of cells in the row.
+     */
+    private int rowWidth(int r) {
+        return range * 2 + 1 - Math.abs(r);
+    }
+
+    /**
+     * A helper method used to get the smallest q component of the cells in the row at the
+     * given r.
+     * @param r the r component of the row.
+     * @return the q component of the first cell in the row.
+     */
+    private int rowFirstQ(int r) {
+        return Math.max(-range, -range - r);
+    }
+
+    /**
+     * A helper method used to get the index in cells of the cell at the given axial position.
+     * @param q the q component of the cell.
+     * @param r the r component of the cell.
+     * @return the index of the cell, or -1 if it is not within the range of the grid.
+     */
+    private int indexOf(int q, int r) {
+        if (r < -range || r > range) {
+            return -1;
+        }
+        int column = q - rowFirstQ(r);
+        if (column < 0 || column >= rowWidth(r)) {
+            return -1;
+        }
+        return rowStart[r + range] + column;
+    }
+
+    /**
+     * Read-only Map view of the cells of the grid. Lookups index cells directly and iteration
+     * creates each Coordinate as it is reached.
+     */
+    private class GridView extends AbstractMap<Coordinate, GridComponent> {
+        @Override
+        public int size() {
+            return cells.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return find(key) >= 0;
+        }
+
+        @Override
+        public GridComponent get(Object key) {
+            int index = find(key);
+            if (index < 0) {
+                return null;
+            }
+            int r = ((Coordinate) key).getR();
+            populate(r, r);
+            return cells[index];
+        }
+
+        @Override
+        public Set<Entry<Coordinate, GridComponent>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return cells.length;
+                }
+
+                @Override
+                public Iterator<Entry<Coordinate, GridComponent>> iterator() {
+                    return new CellIterator();
                 }
+            };
+        }
+
+        /**
+         * A helper method used to find the index of a key in cells.
+         * @param key the key to look up, expected to be a Coordinate.
+         * @return the index of the key, or -1 if it is not a Coordinate within the grid.
+         */
+        private int find(Object key) {
+            if (!(key instanceof Coordinate coordinate)) {
+                return -1;
             }
+            return indexOf(coordinate.getQ(), coordinate.getR());
         }
-        return tempGrid;
     }
 
+    /**
+     * Iterator over the cells of the grid in storage order, that is row by row.
+     */
+    private class CellIterator implements Iterator<Map.Entry<Coordinate, GridComponent>> {
+        /** The index of the next cell to return. */
+        private int index = 0;
+
+        /** The row of the next cell to return, counted from the top row. */
+        private int row = 0;
+
+        @Override
+        public boolean hasNext() {
+            return index < cells.length;
+        }
+
+        @Override
+        public Map.Entry<Coordinate, GridComponent> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (index >= rowStart[row + 1]) {
+                row++;
+            }
+            int r = row - range;
+            populate(r, r);
+            int q = rowFirstQ(r) + index - rowStart[row];
+            Map.Entry<Coordinate, GridComponent> entry =
+                    new AbstractMap.SimpleImmutableEntry<>(new Coordinate(q, r), cells[index]);
+            index++;
+            return entry;
+        }
+    }
 }
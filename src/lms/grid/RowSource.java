@@ -0,0 +1,20 @@
+package lms.grid;
+
+/**
+ * A source of the cells of a GameGrid that is populated lazily, a row at a time, as its cells are
+ * first queried. This lets a very large grid be created without creating the component of every
+ * cell up front.
+ * @see GameGrid#GameGrid(int, RowSource)
+ */
+@FunctionalInterface
+public interface RowSource {
+
+    /**
+     * Populates a row of the grid, by setting the component of any of its cells with
+     * GameGrid.setCoordinate(). Cells of the row that are not set keep their initial component.
+     * The row is only populated once, the first time any of its cells are queried.
+     * @param grid the grid being populated.
+     * @param r the r component of the row to populate.
+     */
+    void populate(GameGrid grid, int r);
+}
@@ -0,0 +1,54 @@
+package lms.grid;
+
+/**
+ * The components of the cells of a GameGrid which are not transport nodes. Each is a single
+ * shared instance, so a grid of any size holds no more than one object for each kind of cell,
+ * and the kind of a cell can be checked by identity.
+ */
+public enum Tile implements GridComponent {
+    /** A wall, which nothing can be placed on. */
+    WALL("w"),
+    /** An empty cell. */
+    EMPTY("o"),
+    /** A cell that nothing has been set at yet. */
+    UNSET("ERROR");
+
+    /** The encoding of this tile. */
+    private final String encoding;
+
+    /**
+     * Constructs a new Tile.
+     * @param encoding the encoding of the tile.
+     */
+    Tile(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Returns the encoding of this tile, as used in save files.
+     * @return "w" for a wall, "o" for an empty cell or "ERROR" for an unset cell.
+     */
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Finds the tile of a component, either because it is a Tile or because it has the same
+     * encoding as one.
+     * @param component the component of a cell.
+     * @return the tile of the component, or null if the component is not a tile (e.g. it is a
+     * transport node).
+     */
+    public static Tile of(GridComponent component) {
+        if (component instanceof Tile tile) {
+            return tile;
+        }
+        for (Tile tile : values()) {
+            if (tile.encoding.equals(component.getEncoding())) {
+                return tile;
+            }
+        }
+        return null;
+    }
+}
@@ -1,22 +1,14 @@
 package lms.gui;
 
-import lms.exceptions.BadStateException;
-import lms.logistics.Path;
-import lms.logistics.Transport;
-import lms.grid.GameGrid;
-import lms.grid.GridComponent;
+import lms.engine.SimulationEngine;
 
 import javax.swing.*;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Controller class for the GUI.
  * <p>
  * Used to control the solution.View based on user input.
- * @version  1.2
+ * @version  1.3
  * @provided
  */
 public class Controller {
@@ -26,6 +18,11 @@ public class Controller {
      */
     private final ViewModel viewModel;
 
+    /**
+     * Engine which advances the map being viewed.
+     */
+    private final SimulationEngine engine;
+
     /**
      * Create a new Controller for the given view, adding ActionListener to
      * the view.
@@ -34,10 +31,12 @@ public class Controller {
      */
     public Controller(ViewModel viewModel) {
         this.viewModel = viewModel;
+        this.engine = new SimulationEngine(viewModel.getMap());
     }
 
     /**
-     * JavaDoc not provided since this is a given piece of code
+     * Starts a Swing Timer which advances the engine by one tick every second (unless the view
+     * is paused) and repaints the items of only the nodes the engine reports as changed.
      */
     public void run() {
         Timer timer = new Timer(1000, e -> {
@@ -45,63 +44,8 @@ public class Controller {
                 return;
             }
 
-            GameGrid map = viewModel.getMap();
-            List<Path> paths = new ArrayList<>();
-            Map<Transport, Path> pathLog = new HashMap<>();
-
-            for (GridComponent component : map.getGrid().values()) {
-
-                if (!(component instanceof Transport transport)) {
-                    continue;
-                }
-                if (pathLog.containsKey(transport)) {
-                    continue;
-                }
-
-                List<Path> search = new ArrayList<>();
-                List<Path> x = List.of(transport.getPath(), transport.getPath());
-                search.add(x.get(0));
-
-                for (Path path : search) {
-                    if (!path.tail().equals(path)) {
-                        continue;
-                    }
-                    Transport t = path.getNode();
-                    while (true) {
-                        pathLog.put(t, path);
-                        if (path.getPrevious() == null) {
-                            break;
-                        }
-                        Transport previousNode = path.getPrevious().getNode();
-                        List<Path> x1 = List.of(
-                                new Path(previousNode.getPath()),
-                                new Path(previousNode.getPath())
-                        );
-
-                        t = previousNode;
-                        x = x1;
-                       // x.get(0).next(x.get(1).next()) ;//= path;
-
-                        x.get(0).setNext(path);
-                        x.get(1).setNext(path);
-
-
-                        path = x.get(0);
-                    }
-                    paths.add(path.tail());
-                }
-            }
-
-            System.out.println(paths.size());
-            for (Path p : paths) {
-                System.out.println(p);
-                try {
-                    p.applyAll(Transport::tick);
-                } catch (BadStateException bse) {
-                    System.err.println("Tick could not be processed:" + bse);
-                }
-            }
-            viewModel.getCanvas().repaint();
+            engine.tick();
+            engine.forEachChanged(viewModel.getCanvas()::repaintInventory);
         });
         timer.setInitialDelay(0);
         timer.setRepeats(true);
@@ -1,7 +1,5 @@
 package lms.gui;
 
-import lms.logistics.Item;
-import lms.logistics.Path;
 import lms.logistics.Transport;
 import lms.logistics.container.Receiver;
 import lms.logistics.container.Producer;
@@ -9,17 +7,22 @@ import lms.grid.Coordinate;
 import lms.grid.GameGrid;
 import lms.grid.GridComponent;
 import lms.grid.Orientation;
+import lms.grid.Tile;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.*;
-import java.util.List;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
 /**
  * A JPanel that provides a graphics context for drawing the grid
  * This class is intended for use as a canvas for 2Dgraphics.
+ * The map can be zoomed with the mouse wheel and panned by dragging it, and
+ * only the hexagons on the canvas are laid out and drawn.
  *
  * <p>
  * Example output:
@@ -31,14 +34,115 @@ import java.util.List;
 class GraphicsCanvas extends JPanel {
 
     /**
-     * Stores the hexagons in a List of DrawnElements
+     * The stroke used to draw links between Transport nodes
      */
-    private final List<DrawnElement> hexagons;
+    private static final Stroke LINK_STROKE = new BasicStroke(3);
 
     /**
-     * Stores the hover polygon
+     * The scale below which links and items are not drawn, as they would be too small to see
      */
-    private Polygon hoverPolygon;
+    private static final double DETAIL_SCALE = 0.4;
+
+    /**
+     * The scale below which the outlines of hexagons are not drawn
+     */
+    private static final double OUTLINE_SCALE = 0.15;
+
+    /**
+     * The smallest scale the map can be zoomed out to
+     */
+    private static final double MIN_SCALE = 0.01;
+
+    /**
+     * The largest scale the map can be zoomed in to
+     */
+    private static final double MAX_SCALE = 4;
+
+    /**
+     * The factor the scale changes by for each step of the mouse wheel
+     */
+    private static final double ZOOM_STEP = 1.25;
+
+    /**
+     * The position of an id without a Transport node on the map, which no Coordinate of a map
+     * can be packed into
+     */
+    private static final long UNPLACED = Long.MIN_VALUE;
+
+    /**
+     * Stores the map drawn, or null if no map has been drawn
+     */
+    private GameGrid map;
+
+    /**
+     * Stores the hexagons of the map row by row, each of which is only created once it is
+     * first visible
+     */
+    private DrawnElement[] hexagons;
+
+    /**
+     * Stores the orientation of the links of every Transport node, indexed by id
+     */
+    private Orientation[][] linkDirections;
+
+    /**
+     * Stores the packed Coordinate of every Transport node, indexed by id, or UNPLACED for ids
+     * without a node on the map
+     */
+    private long[] nodePositions;
+
+    /**
+     * Stores the parts of the map that do not change between ticks (outlines, tiles, links and
+     * node boxes), drawn once and then copied on each repaint. Null until it is first painted
+     * or after the map has changed
+     */
+    private BufferedImage background;
+
+    /**
+     * Stores the element the mouse is hovering over, or null
+     */
+    private DrawnElement hovered;
+
+    /**
+     * Stores the range of the map drawn
+     */
+    private int mapRange;
+
+    /**
+     * Stores the index in hexagons of the first element of each row of the map, which are
+     * added row by row
+     */
+    private int[] rowStart;
+
+    /**
+     * Stores the x coordinate of the centre of the hexagon at the origin
+     */
+    private int originX;
+
+    /**
+     * Stores the y coordinate of the centre of the hexagon at the origin
+     */
+    private int originY;
+
+    /**
+     * Stores the scale the map is drawn at, where 1 is the full size of a hexagon
+     */
+    private double scale;
+
+    /**
+     * Stores the x offset of the map on the canvas, after it is scaled
+     */
+    private double panX;
+
+    /**
+     * Stores the y offset of the map on the canvas, after it is scaled
+     */
+    private double panY;
+
+    /**
+     * Stores the last point the mouse was dragged from
+     */
+    private Point dragStart;
 
 
     /**
@@ -75,6 +179,12 @@ class GraphicsCanvas extends JPanel {
         private GridComponent component;
         //  method [getComponent]
 
+        /**
+         * Stores the orientation of the input and output links of a Transport node, either
+         * of which is null if there is no link to draw, or null if there are no links
+         */
+        private Orientation[] links;
+
         public DrawnElement(Coordinate coordinate, Polygon polygon, int x, int y,
                             GridComponent component) {
             this.coordinate = coordinate;
@@ -94,54 +204,72 @@ class GraphicsCanvas extends JPanel {
     public GraphicsCanvas(int prefWidth, int prefHeight) {
         super();
         this.setPreferredSize(new Dimension(prefWidth, prefHeight));
-        hexagons = new ArrayList<>();
-        hoverPolygon = null;
-        addMouseMotionListener(new MouseAdapter() {
+        hexagons = new DrawnElement[0];
+        background = null;
+        hovered = null;
+        rowStart = new int[0];
+        scale = 1;
+        MouseAdapter mouse = new MouseAdapter() {
 
             /**
-             * This is a method implementation for the mouseMoved method,
-             * which is part of a MouseAdapter object being used in a
-             * GraphicsCanvas class. The mouseMoved method is called when
-             * the user moves the mouse within the canvas.
-             * <p>
-             * The purpose of this method is to determine whether the mouse
-             * is currently hovering over any of the hexagons that have been
-             * added to the GraphicsCanvas. Here's how it works:
-             * <p>
-             * hexagons.stream() - creates a stream of Hexagon objects that
-             * have been added to the GraphicsCanvas.
-             * .map(el -> el.polygon) - maps each Hexagon object to its corresponding
-             * Polygon object. .filter(p -> p.contains(e.getPoint())) - filters the
-             * stream to include only Polygon objects that contain the current mouse
-             * point (e.getPoint()). .findFirst() returns an Optional containing the
-             * first Polygon that was filtered, if one exists.
-             * .ifPresentOrElse(p -> hoverPolygon = p, () -> hoverPolygon = null) -
-             * sets the hoverPolygon variable to the first Polygon if it exists, or
-             * null if it doesn't. The code is checking whether the mouse is currently
-             * hovering over any of the hexagons on the canvas, and if so, it sets the
-             * hoverPolygon variable to the corresponding Polygon. Finally, it calls
-             * repaint() to update the canvas and display the hover state of the hexagon.
+             * Finds the hexagon the mouse is hovering over from the position of the mouse,
+             * and repaints the old and new hovered hexagons if it has changed.
              */
             @Override
             public void mouseMoved(MouseEvent e) {
-                hexagons.stream()
-                        .map(el -> el.polygon)
-                        .filter(p -> p.contains(e.getPoint()))
-                        .findFirst()
-                        .ifPresentOrElse(p -> hoverPolygon = p, () -> hoverPolygon = null);
-                repaint();
+                DrawnElement element = getElementAt(e.getX(), e.getY());
+                if (element == hovered) {
+                    return;
+                }
+                if (hovered != null) {
+                    repaintMap(hovered.polygon.getBounds());
+                }
+                if (element != null) {
+                    repaintMap(element.polygon.getBounds());
+                }
+                hovered = element;
             }
-        });
+
+            /**
+             * Starts dragging the map.
+             */
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+            }
+
+            /**
+             * Pans the map by the distance the mouse was dragged.
+             */
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart != null) {
+                    pan(e.getX() - dragStart.x, e.getY() - dragStart.y);
+                }
+                dragStart = e.getPoint();
+            }
+
+            /**
+             * Zooms the map in or out around the mouse.
+             */
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
     }
 
     /**
      * Draws a game map by generating a hexagonal grid based on the MapComponents
      * of the provided GameGrid. The generated grid is centered on the JPanel that
      * this method is called from, unless its dimensions are (0,0), in which case
-     * the grid is centered on the preferred size of the JPanel. The hexagonal
-     * grid is generated using a slow algorithm that iterates over all the
-     * MapComponents and their connections, drawing the hexagons on a canvas as it
-     * goes.
+     * the grid is centered on the preferred size of the JPanel. The position of
+     * each hexagon is calculated directly from its Coordinate, and hexagons are only
+     * created once they are first visible. A map too large for the canvas is zoomed
+     * out to fit it. Any map drawn before is replaced.
      *
      * @param map the GameGrid to draw
      */
@@ -154,76 +282,287 @@ class GraphicsCanvas extends JPanel {
             x = dimensions.width / 2;
             y = dimensions.height / 2;
         }
+        originX = x;
+        originY = y;
 
-        Map<Coordinate, GridComponent> grid = map.getGrid();
         setLayout(null);
+        this.map = map;
+        background = null;
+        hovered = null;
+
+        mapRange = map.getRange();
+        rowStart = new int[Math.max(0, mapRange * 2 + 1)];
+        int cells = 0;
+        for (int row = 0; row < rowStart.length; row++) {
+            rowStart[row] = cells;
+            cells += rowStart.length - Math.abs(row - mapRange);
+        }
+        hexagons = new DrawnElement[cells];
+
+        /* Every link is found in one pass, indexed by the id of the Transport it is from */
+        linkDirections = map.getLinkDirections();
+        nodePositions = new long[linkDirections.length];
+        Arrays.fill(nodePositions, UNPLACED);
+        map.forEachCell((q, r, component) -> {
+            if (component instanceof Transport transport) {
+                nodePositions[transport.getId()] = Coordinate.pack(q, r);
+            }
+        });
+        resetView();
+    }
 
-        List<Coordinate> tasklist = new ArrayList<>();
+    /**
+     * Zooms the map out until all of it fits on the canvas, if it does not already, and
+     * centres it.
+     */
+    public void resetView() {
+        int size = getHexagonSize();
+        double width = (mapRange * 2 + 1) * size;
+        double height = mapRange * 2 * (size * 3 / 4) + size;
+        scale = 1;
+        if (mapRange >= 0) {
+            scale = Math.min(scale, Math.min(originX * 2 / width, originY * 2 / height));
+            scale = Math.max(scale, MIN_SCALE);
+        }
+
+        // Keeps the origin of the map at the centre of the canvas
+        panX = originX * (1 - scale);
+        panY = originY * (1 - scale);
+        background = null;
+        repaint();
+    }
 
-        Coordinate origin = new Coordinate();
+    /**
+     * Moves the map across the canvas.
+     *
+     * @param dx the distance to move the map right, in pixels
+     * @param dy the distance to move the map down, in pixels
+     */
+    public void pan(int dx, int dy) {
+        panX += dx;
+        panY += dy;
+        shiftBackground(dx, dy);
+        repaint();
+    }
 
-        hexagons.add(new DrawnElement(origin, drawHexagon(x, y), x, y, grid.get(origin)));
-        tasklist.add(origin);
+    /**
+     * Zooms the map in or out, keeping a point on the canvas over the same part of the map.
+     *
+     * @param factor the factor to multiply the scale by, which is greater than 1 to zoom in
+     * @param x the x coordinate of the point on the canvas to zoom around
+     * @param y the y coordinate of the point on the canvas to zoom around
+     */
+    public void zoom(double factor, int x, int y) {
+        double zoomed = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        panX = x - (x - panX) * zoomed / scale;
+        panY = y - (y - panY) * zoomed / scale;
+        scale = zoomed;
+        background = null;
+        repaint();
+    }
 
+    /**
+     * Calls an action on the DrawnElement of every hexagon that is at least partly within an
+     * area of the canvas, row by row, creating any that have not been created yet. Hexagons
+     * outside of the area are never visited.
+     *
+     * @param area the area of the canvas
+     * @param action the action to call on each DrawnElement
+     */
+    private void forEachVisible(Rectangle area, Consumer<DrawnElement> action) {
         int size = getHexagonSize();
         int half = size / 2;
         int threeQuart = size * 3 / 4;
 
+        /* The area on the map, grown by the distance from the centre of a hexagon to its edge
+           and a little more for the width of lines, so that every hexagon drawn at least partly
+           in the area has its centre inside it */
+        double margin = half + 2 + 2 / scale;
+        double left = (area.x - panX) / scale - margin;
+        double right = (area.x + area.width - panX) / scale + margin;
+        double top = (area.y - panY) / scale - margin;
+        double bottom = (area.y + area.height - panY) / scale + margin;
+
+        int firstR = (int) Math.max(-mapRange, Math.ceil((top - originY) / threeQuart));
+        int lastR = (int) Math.min(mapRange, Math.floor((bottom - originY) / threeQuart));
+        for (int r = firstR; r <= lastR; r++) {
+            double rowX = originX + (double) r * half;
+            int firstQ = (int) Math.max(Math.max(-mapRange, -mapRange - r),
+                    Math.ceil((left - rowX) / size));
+            int lastQ = (int) Math.min(Math.min(mapRange, mapRange - r),
+                    Math.floor((right - rowX) / size));
+            for (int q = firstQ; q <= lastQ; q++) {
+                action.accept(getElement(q, r));
+            }
+        }
+    }
 
-        // Incredibly slow algorithm
-        // Improve if you want
-        // Hard because generic Coordinate system and working off connections
-        while (!tasklist.isEmpty()) {
-            Coordinate target = tasklist.remove(0);
-            grid.remove(target);
-            // if item != null do something (drawing)
-
-            DrawnElement element =
-                    hexagons.stream()
-                            .filter(e -> e.coordinate.equals(target))
-                            .findFirst().orElseThrow(IllegalArgumentException::new);
-            for (Coordinate c : grid.keySet()) {
-                if (tasklist.contains(c)) {
-                    continue;
-                }
-                if (target.isNeighbour(c)) {
-                    Orientation direction = target.getDirection(c);
-                    x = element.cordX;
-                    y = element.cordY;
-                    switch (direction) {
-                        case TOP_LEFT -> {
-                            x -= half;
-                            y -= threeQuart;
-                        }
-                        case TOP_RIGHT -> {
-                            x += half;
-                            y -= threeQuart;
-                        }
-                        case RIGHT -> {
-                            x += size;
-                        }
-                        case BOTTOM_RIGHT -> {
-                            x += half;
-                            y += threeQuart;
-                        }
-                        case BOTTOM_LEFT -> {
-                            x -= half;
-                            y += threeQuart;
-                        }
-                        case LEFT -> {
-                            x -= size;
-                        }
-                    }
-                    hexagons.add(new DrawnElement(c, drawHexagon(x, y), x, y,
-                            grid.getOrDefault(c, () -> "ERROR")));
-                    System.out.println("Drew " + c + " as " + grid.getOrDefault(c, () -> "ERROR")
-                            .getEncoding() + " : from - " + target + " - as " + direction);
-                    tasklist.add(c);
-                }
+    /**
+     * Returns the DrawnElement whose hexagon contains a point, by inverting the calculation of
+     * the position of each hexagon in drawMap rather than searching every hexagon.
+     *
+     * @param canvasX the x coordinate of the point on the canvas
+     * @param canvasY the y coordinate of the point on the canvas
+     * @return the DrawnElement containing the point, or null if it is not within the map
+     */
+    private DrawnElement getElementAt(int canvasX, int canvasY) {
+        double x = (canvasX - panX) / scale;
+        double y = (canvasY - panY) / scale;
+        int size = getHexagonSize();
+        int half = size / 2;
+        int threeQuart = size * 3 / 4;
+
+        /* The fractional Coordinate of the point, rounded to the nearest hexagon by rounding
+           each of q, r and s and then correcting the one that was rounded the furthest */
+        double exactR = (y - originY) / threeQuart;
+        double exactQ = (x - originX - exactR * half) / size;
+        double exactS = -exactQ - exactR;
+        long q = Math.round(exactQ);
+        long r = Math.round(exactR);
+        long s = Math.round(exactS);
+        double errorQ = Math.abs(q - exactQ);
+        double errorR = Math.abs(r - exactR);
+        double errorS = Math.abs(s - exactS);
+        if (errorQ > errorR && errorQ > errorS) {
+            q = -r - s;
+        } else if (errorR > errorS) {
+            r = -q - s;
+        }
+
+        /* Points on the edge of a hexagon may belong to a neighbour, as decided by Polygon */
+        DrawnElement element = getElement(q, r);
+        if (element != null && element.polygon.contains(x, y)) {
+            return element;
+        }
+        for (Orientation orientation : Orientation.values()) {
+            DrawnElement neighbour = getElement(q + Coordinate.offsetQ(orientation),
+                    r + Coordinate.offsetR(orientation));
+            if (neighbour != null && neighbour.polygon.contains(x, y)) {
+                return neighbour;
             }
         }
+        return null;
     }
 
+    /**
+     * Returns the DrawnElement at a Coordinate of the map, creating it if it is the first time
+     * it is needed.
+     *
+     * @param q the q component of the Coordinate
+     * @param r the r component of the Coordinate
+     * @return the DrawnElement at the Coordinate, or null if it is not within the map
+     */
+    private DrawnElement getElement(long q, long r) {
+        long row = r + mapRange;
+        if (row < 0 || row >= rowStart.length) {
+            return null;
+        }
+        long firstQ = Math.max(-mapRange, -mapRange - r);
+        long lastQ = Math.min(mapRange, mapRange - r);
+        if (q < firstQ || q > lastQ) {
+            return null;
+        }
+        int index = rowStart[(int) row] + (int) (q - firstQ);
+        if (hexagons[index] == null) {
+            hexagons[index] = createElement((int) q, (int) r);
+        }
+        return hexagons[index];
+    }
+
+    /**
+     * Returns the x coordinate of the centre of a hexagon of the map, before it is scaled and
+     * panned.
+     *
+     * @param q the q component of the Coordinate of the hexagon
+     * @param r the r component of the Coordinate of the hexagon
+     * @return the x coordinate of the centre of the hexagon
+     */
+    private int cellX(int q, int r) {
+        /* Moving RIGHT (q + 1) is a whole hexagon across, while moving BOTTOM_RIGHT (r + 1)
+           is half a hexagon across */
+        int size = getHexagonSize();
+        return originX + q * size + r * (size / 2);
+    }
+
+    /**
+     * Returns the y coordinate of the centre of a hexagon of the map, before it is scaled and
+     * panned.
+     *
+     * @param r the r component of the Coordinate of the hexagon
+     * @return the y coordinate of the centre of the hexagon
+     */
+    private int cellY(int r) {
+        /* Moving BOTTOM_RIGHT (r + 1) is three quarters of a hexagon down */
+        return originY + r * (getHexagonSize() * 3 / 4);
+    }
+
+    /**
+     * Creates the DrawnElement of a hexagon of the map.
+     *
+     * @param q the q component of the Coordinate of the hexagon
+     * @param r the r component of the Coordinate of the hexagon
+     * @return the new DrawnElement
+     */
+    private DrawnElement createElement(int q, int r) {
+        int cellX = cellX(q, r);
+        int cellY = cellY(r);
+        Coordinate coordinate = new Coordinate(q, r);
+        GridComponent component = map.getView().get(coordinate);
+        DrawnElement element = new DrawnElement(coordinate, drawHexagon(cellX, cellY), cellX,
+                cellY, component);
+        if (component instanceof Transport transport) {
+            int id = transport.getId();
+            element.links = id >= 0 && id < linkDirections.length ? linkDirections[id] : null;
+        }
+        return element;
+    }
+
+    /**
+     * Returns the area of the canvas that an area of the map is drawn in.
+     *
+     * @param area the area of the map, before it is scaled and panned
+     * @return the area of the canvas, rounded out to whole pixels
+     */
+    private Rectangle toCanvas(Rectangle area) {
+        int left = (int) Math.floor(area.x * scale + panX) - 1;
+        int top = (int) Math.floor(area.y * scale + panY) - 1;
+        int right = (int) Math.ceil((area.x + area.width) * scale + panX) + 1;
+        int bottom = (int) Math.ceil((area.y + area.height) * scale + panY) + 1;
+        return new Rectangle(left, top, right - left, bottom - top);
+    }
+
+    /**
+     * Repaints the area of the canvas an area of the map is drawn in.
+     *
+     * @param area the area of the map, before it is scaled and panned
+     */
+    private void repaintMap(Rectangle area) {
+        repaint(toCanvas(area));
+    }
+
+    /**
+     * Repaints the item of a Transport node whose inventory has changed, if it is on the canvas
+     * and items are drawn at the current scale. Should be called for each node that changed in
+     * a tick of the map, as reported by SimulationEngine.forEachChanged(), so that the cost of a
+     * tick only depends on the number of nodes that changed.
+     *
+     * @param node the Transport node whose inventory changed
+     */
+    public void repaintInventory(Transport node) {
+        if (map == null || scale < DETAIL_SCALE) {
+            return;
+        }
+        int id = node.getId();
+        if (id < 0 || id >= nodePositions.length || nodePositions[id] == UNPLACED) {
+            return;
+        }
+        int q = Coordinate.unpackQ(nodePositions[id]);
+        int r = Coordinate.unpackR(nodePositions[id]);
+        Rectangle item = toCanvas(new Rectangle(cellX(q, r) - 2, cellY(r) - 2, 5, 5));
+        if (item.intersects(0, 0, getWidth(), getHeight())) {
+            repaint(item);
+        }
+    }
 
     /**
      * Draws a line between the specified coordinates and the middle of one of
@@ -279,51 +618,32 @@ class GraphicsCanvas extends JPanel {
 
         /* Draw the line between the specified starting point and the midpoint of the side */
         Stroke s = graphics2D.getStroke();
-        graphics2D.setStroke(new BasicStroke(3));
+        graphics2D.setStroke(LINK_STROKE);
         graphics2D.drawLine(x, y, midX, midY);
         graphics2D.setStroke(s);
     }
 
     /**
-     * Returns the DrawnElement that contains a Transport component with the specified ID.
-     *
-     * @param id the ID of the Transport component to search for
-     * @return the DrawnElement that contains the Transport component with the specified ID
-     * @throws RuntimeException if no DrawnElement is found with the specified Transport ID
-     */
-    private DrawnElement getElementByTransportId(int id) {
-        return hexagons.stream()
-                .filter(el -> el.component instanceof Transport)
-                .filter(el -> ((Transport) el.component).getId() == id)
-                .findAny()
-                .orElseThrow(RuntimeException::new);
-    }
-
-    /**
-     * Draws the element contents.
+     * Draws the element contents that do not change between ticks. The item in a Transport
+     * node is drawn separately by drawItem.
      * <p>
      *
      * @param element The element to draw.
+     * @param detailed whether to draw the links of a Transport node, which are too small to
+     *                 see when the map is zoomed out
      */
-    public void drawShape(Graphics2D graphics2D, DrawnElement element) {
+    public void drawShape(Graphics2D graphics2D, DrawnElement element, boolean detailed) {
         GridComponent component = element.component;
-        if (component instanceof Transport transport) {
+        if (component instanceof Transport) {
             int x = element.cordX;
             int y = element.cordY;
             // Draw line
-            Coordinate coordinate = element.coordinate;
-            List<Path> nodes = new ArrayList<>();
-            nodes.add(transport.getInput());
-            nodes.add(transport.getOutput());
-
-            for (Path node : nodes) {
-                if (node == null) {
-                    continue;
+            if (detailed && element.links != null) {
+                for (Orientation direction : element.links) {
+                    if (direction != null) {
+                        drawLine(graphics2D, element.polygon, x, y, direction);
+                    }
                 }
-                Transport item = node.getNode();
-                Coordinate other = getElementByTransportId(item.getId()).coordinate;
-                Orientation direction = coordinate.getDirection(other);
-                drawLine(graphics2D, element.polygon, x, y, direction);
             }
             // Draw box
             if (component instanceof Receiver) {
@@ -335,54 +655,152 @@ class GraphicsCanvas extends JPanel {
             }
             graphics2D.fillRect(x - 5, y - 5, 11, 11);
             graphics2D.setPaint(Color.BLACK);
-            // Draw item
-            Item item = transport.getInventory();
-            if (item != null) {
-                graphics2D.setPaint(Color.RED);
-                graphics2D.fillRect(x - 2, y - 2, 5, 5);
-            }
         } else {
             Polygon hexagon = element.polygon;
-            switch (component.getEncoding()) {
-                case "w" -> {
-                    graphics2D.setPaint(Color.BLACK);
-                    graphics2D.fillPolygon(hexagon);
-                }
-                case "ERROR" -> {
-                    graphics2D.setPaint(Color.RED);
-                    graphics2D.fillPolygon(hexagon);
-                }
-                case "o" -> {
-                }
-                default -> {
-                    System.out.println(component.getEncoding());
-                    graphics2D.setPaint(Color.ORANGE);
-                    graphics2D.fillPolygon(hexagon);
-                }
+            Tile tile = Tile.of(component);
+            if (tile == Tile.WALL) {
+                graphics2D.setPaint(Color.BLACK);
+                graphics2D.fillPolygon(hexagon);
+            } else if (tile == Tile.UNSET) {
+                graphics2D.setPaint(Color.RED);
+                graphics2D.fillPolygon(hexagon);
+            } else if (tile == null) {
+                System.out.println(component.getEncoding());
+                graphics2D.setPaint(Color.ORANGE);
+                graphics2D.fillPolygon(hexagon);
+            }
+        }
+    }
+
+    /**
+     * Draws the item in a Transport node, if it has one.
+     *
+     * @param graphics2D the graphics context to draw with
+     * @param element the element of the Transport node to draw the item of
+     */
+    private void drawItem(Graphics2D graphics2D, DrawnElement element) {
+        if (((Transport) element.component).getInventory() != null) {
+            graphics2D.setPaint(Color.RED);
+            graphics2D.fillRect(element.cordX - 2, element.cordY - 2, 5, 5);
+        }
+    }
+
+    /**
+     * Draws every visible part of the map that does not change between ticks into the
+     * background image, which is created to match the current size of the canvas.
+     */
+    private void drawBackground() {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        background = configuration == null
+                ? new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB)
+                : configuration.createCompatibleImage(getWidth(), getHeight(),
+                        Transparency.TRANSLUCENT);
+        drawBackground(new Rectangle(0, 0, getWidth(), getHeight()));
+    }
+
+    /**
+     * Clears an area of the background image and draws the parts of the map that fall in it.
+     * Outlines are left out when the map is zoomed far out, and links when it is zoomed out.
+     *
+     * @param area the area of the canvas to draw, in pixels
+     */
+    private void drawBackground(Rectangle area) {
+        Graphics2D graphics2D = background.createGraphics();
+        graphics2D.clip(area);
+        graphics2D.setComposite(AlphaComposite.Clear);
+        graphics2D.fill(area);
+        graphics2D.setComposite(AlphaComposite.SrcOver);
+
+        graphics2D.translate(panX, panY);
+        graphics2D.scale(scale, scale);
+        boolean outlined = scale >= OUTLINE_SCALE;
+        boolean detailed = scale >= DETAIL_SCALE;
+        forEachVisible(area, shape -> {
+            if (outlined) {
+                graphics2D.setPaint(Color.BLACK);
+                graphics2D.drawPolygon(shape.polygon);
             }
+            drawShape(graphics2D, shape, detailed);
+        });
+        graphics2D.dispose();
+    }
+
+    /**
+     * Moves the contents of the background image to follow a pan of the map and draws only the
+     * strips along the edges that the pan has exposed. The image is left to be drawn again in
+     * full if it does not match the canvas or the pan moves it out of view entirely.
+     *
+     * @param dx the distance the map moved right, in pixels
+     * @param dy the distance the map moved down, in pixels
+     */
+    private void shiftBackground(int dx, int dy) {
+        int width = getWidth();
+        int height = getHeight();
+        if (background == null || background.getWidth() != width
+                || background.getHeight() != height
+                || Math.abs(dx) >= width || Math.abs(dy) >= height) {
+            background = null;
+            return;
+        }
+        Graphics2D graphics2D = background.createGraphics();
+        graphics2D.setComposite(AlphaComposite.Src);
+        graphics2D.copyArea(0, 0, width, height, dx, dy);
+        graphics2D.dispose();
+
+        if (dx != 0) {
+            drawBackground(new Rectangle(dx > 0 ? 0 : width + dx, 0, Math.abs(dx), height));
+        }
+        if (dy != 0) {
+            drawBackground(new Rectangle(0, dy > 0 ? 0 : height + dy, width, Math.abs(dy)));
         }
     }
 
     /**
      * This is the main graphical canvas for drawing your objects, such as hexagons and such.
+     * Only the area being repainted is drawn: the parts of the map which do not change are
+     * copied from the background image, and then the items and hover are drawn over them.
      *
      * @param g the <code>Graphics</code> object to protect
      */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (getWidth() <= 0 || getHeight() <= 0 || map == null) {
+            return;
+        }
+        if (background == null || background.getWidth() != getWidth()
+                || background.getHeight() != getHeight()) {
+            drawBackground();
+        }
         Graphics2D graphics2D = (Graphics2D) g.create();
 
-        for (DrawnElement shape : hexagons) {
-            graphics2D.setPaint(Color.BLACK);
-            graphics2D.drawPolygon(shape.polygon);
-            drawShape(graphics2D, shape);
-
+        Rectangle clip = graphics2D.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        graphics2D.drawImage(background, clip.x, clip.y, clip.x + clip.width,
+                clip.y + clip.height, clip.x, clip.y, clip.x + clip.width,
+                clip.y + clip.height, null);
+
+        graphics2D.translate(panX, panY);
+        graphics2D.scale(scale, scale);
+        if (scale >= DETAIL_SCALE) {
+            Rectangle painted = clip;
+            forEachVisible(clip, element -> {
+                if (element.component instanceof Transport) {
+                    Rectangle item = toCanvas(new Rectangle(element.cordX - 2,
+                            element.cordY - 2, 5, 5));
+                    if (painted.intersects(item)) {
+                        drawItem(graphics2D, element);
+                    }
+                }
+            });
         }
 
-        if (hoverPolygon != null) {
+        if (hovered != null) {
+            graphics2D.setPaint(Color.BLACK);
             graphics2D.setComposite(AlphaComposite.SrcOver.derive(0.5f));
-            graphics2D.fillPolygon(hoverPolygon);
+            graphics2D.fillPolygon(hovered.polygon);
         }
 
         graphics2D.dispose();
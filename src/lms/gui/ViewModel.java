@@ -118,6 +118,16 @@ public class ViewModel {
         /* Add the pauseMenu item to the menuBar */
         menu.add(pausedMenu);
 
+        /* Create a menu for the view of the map, which is zoomed with the mouse wheel and
+           panned by dragging */
+        JMenu viewMenu = new JMenu("View");
+        JMenuItem resetView = new JMenuItem("Zoom to fit", KeyEvent.VK_F);
+        resetView.setAccelerator(KeyStroke.getKeyStroke(
+                KeyEvent.VK_F, ActionEvent.SHIFT_MASK));
+        resetView.addActionListener(e -> canvas.resetView());
+        viewMenu.add(resetView);
+        menu.add(viewMenu);
+
         /* Add the menu bar to the frame */
         frame.setJMenuBar(menu);
     }
@@ -158,7 +168,7 @@ public class ViewModel {
         GraphicsCanvas canvas = new GraphicsCanvas(600, 600);
 
         Coordinate origin = new Coordinate();
-        if (map.getGrid().containsKey(origin)) {
+        if (map.getView().containsKey(origin)) {
             canvas.drawMap(map);
         } else {
             System.out.println("Coordinate map did not have an Origin Coordinate, nothing was "
@@ -0,0 +1,86 @@
+package lms.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Constants and helpers shared by GameSaver and BinaryGameLoader, describing the binary save
+ * format. All numbers are big-endian, and a file consists of, in order:
+ * <ol>
+ *     <li>the magic number MAGIC and the format VERSION, as ints;</li>
+ *     <li>the range of the grid, as an int;</li>
+ *     <li>the item dictionary: the number of items as an int, followed by the key of each item in
+ *     modified UTF-8 (as written by DataOutput.writeUTF);</li>
+ *     <li>the number of cells as an int, followed by the type of every cell packed into 4 bits,
+ *     two cells per byte with the first in the low bits. Cells are ordered by row, from the top
+ *     of the grid, then from left to right within each row, as in the text format;</li>
+ *     <li>the number of transport nodes as an int, followed by four int arrays holding, for each
+ *     node in cell order: its id, the index of its key in the item dictionary (or -1 for a belt),
+ *     and the positions of its input and output nodes (counting nodes in cell order from 1, or 0
+ *     if the node has no input or output);</li>
+ *     <li>from version 2, the state of the simulation: the number of ticks processed as a long,
+ *     followed by two int arrays holding, for each node in cell order, the index in the item
+ *     dictionary of the Item it holds (or -1 if it holds nothing) and its counter (0 for nodes
+ *     other than producers).</li>
+ * </ol>
+ */
+final class BinaryFormat {
+    /** The first four bytes of every binary save file, "LMSG" in ASCII. */
+    static final int MAGIC = 0x4C4D5347;
+
+    /** The version of the format written by GameSaver. */
+    static final int VERSION = 2;
+
+    /** The oldest version of the format that can still be loaded, which has no state. */
+    static final int OLDEST_VERSION = 1;
+
+    /** Cell type of a cell that has not been set. */
+    static final byte UNSET = 0;
+    /** Cell type of a wall. */
+    static final byte WALL = 1;
+    /** Cell type of an empty cell. */
+    static final byte EMPTY = 2;
+    /** Cell type of a Belt. */
+    static final byte BELT = 3;
+    /** Cell type of a Producer. */
+    static final byte PRODUCER = 4;
+    /** Cell type of a Receiver. */
+    static final byte RECEIVER = 5;
+
+    /**
+     * Private constructor, as this class only holds constants and static helpers.
+     */
+    private BinaryFormat() {
+    }
+
+    /**
+     * Converts an array of ints into its big-endian bytes.
+     * @param values the ints to convert.
+     * @return array holding the bytes of every int, in order.
+     */
+    static byte[] toBytes(int[] values) {
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * Integer.BYTES);
+        bytes.asIntBuffer().put(values);
+        return bytes.array();
+    }
+
+    /**
+     * Converts big-endian bytes into an array of ints.
+     * @param bytes the bytes to convert, whose length is a multiple of 4.
+     * @return array holding the ints, in order.
+     */
+    static int[] toInts(byte[] bytes) {
+        int[] values = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Calculates the number of cells in a hexagonal grid of the given range.
+     * @param range the range of the grid.
+     * @return the number of cells in the grid.
+     * @requires range &gt;= 0
+     */
+    static long cellCount(int range) {
+        return 3L * range * (range + 1) + 1;
+    }
+}
@@ -0,0 +1,319 @@
+package lms.io;
+
+import lms.exceptions.FileFormatException;
+import lms.grid.Coordinate;
+import lms.grid.GameGrid;
+import lms.grid.GridComponent;
+import lms.grid.Tile;
+import lms.logistics.Item;
+import lms.logistics.ItemRegistry;
+import lms.logistics.Transport;
+import lms.logistics.belts.Belt;
+import lms.logistics.container.Producer;
+import lms.logistics.container.Receiver;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class responsible for loading a GameGrid from the compact binary save format written by
+ * GameSaver. The cell types, ids, keys and links are read as whole arrays, so loading is limited
+ * by creating the nodes rather than by parsing.
+ * <p>
+ * Saves that hold the state of a simulation restore the Item held by every node and the counter
+ * of every Producer, and the number of ticks processed is available from getTickCount() after
+ * loading the save through an instance of this class.
+ * @see BinaryFormat
+ */
+public class BinaryGameLoader {
+    /** The size of the buffer used when reading from a stream. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** The number of ticks processed when the last save loaded was written. */
+    private long tickCount;
+
+    /**
+     * Constructs a new BinaryGameLoader, which can then be used to load any number of saves.
+     */
+    public BinaryGameLoader() {
+    }
+
+    /**
+     * Accessor method to get the number of ticks that had been processed when the last save
+     * loaded by this loader was written.
+     * @return the tick count of the last save loaded, or 0 if it holds no state.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Loads a GameGrid from a stream in the binary save format with this loader. The stream is not
+     * closed.
+     * @param in the stream to read from.
+     * @return the GameGrid loaded from the stream.
+     * @throws IOException if there is an error reading from the stream.
+     * @throws FileFormatException if the stream is not a valid binary save, or was written in a
+     * version of the format that is not supported.
+     */
+    public GameGrid read(InputStream in) throws IOException, FileFormatException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        try {
+            return read(data);
+        } catch (EOFException e) {
+            throw new FileFormatException("Binary save ended early", e);
+        }
+    }
+
+    /**
+     * Loads a GameGrid from a file in the binary save format with this loader.
+     * @param file the path of the file to load.
+     * @return the GameGrid loaded from the file.
+     * @throws IOException if there is an error reading the file.
+     * @throws FileFormatException if the file is not a valid binary save, or was written in a
+     * version of the format that is not supported.
+     */
+    public GameGrid read(java.nio.file.Path file) throws IOException, FileFormatException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Loads a GameGrid from a stream in the binary save format. The stream is not closed.
+     * @param in the stream to read from.
+     * @return the GameGrid loaded from the stream.
+     * @throws IOException if there is an error reading from the stream.
+     * @throws FileFormatException if the stream is not a valid binary save, or was written in a
+     * version of the format that is not supported.
+     */
+    public static GameGrid load(InputStream in) throws IOException, FileFormatException {
+        return new BinaryGameLoader().read(in);
+    }
+
+    /**
+     * Loads a GameGrid from a file in the binary save format.
+     * @param file the path of the file to load.
+     * @return the GameGrid loaded from the file.
+     * @throws IOException if there is an error reading the file.
+     * @throws FileFormatException if the file is not a valid binary save, or was written in a
+     * version of the format that is not supported.
+     */
+    public static GameGrid load(java.nio.file.Path file) throws IOException, FileFormatException {
+        return new BinaryGameLoader().read(file);
+    }
+
+    /**
+     * A helper method used to read every part of a binary save in order.
+     * @param data the stream to read from.
+     * @return the GameGrid loaded from the stream.
+     * @throws IOException if there is an error reading from the stream.
+     * @throws FileFormatException if the stream is not a valid binary save.
+     */
+    private GameGrid read(DataInputStream data) throws IOException, FileFormatException {
+        tickCount = 0;
+        if (data.readInt() != BinaryFormat.MAGIC) {
+            throw new FileFormatException("Not a binary save");
+        }
+        int version = data.readInt();
+        if (version < BinaryFormat.OLDEST_VERSION || version > BinaryFormat.VERSION) {
+            throw new FileFormatException("Unsupported binary save version " + version);
+        }
+
+        int range = data.readInt();
+        if (range < 0) {
+            throw new FileFormatException("Invalid range " + range);
+        }
+
+        ItemRegistry registry = new ItemRegistry();
+        // The count is not used to size the dictionary, so a corrupt count runs out of keys to
+        // read rather than out of memory
+        int itemCount = readCount(data);
+        List<Item> dictionary = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            try {
+                dictionary.add(registry.intern(data.readUTF()));
+            } catch (IllegalArgumentException e) {
+                throw new FileFormatException("Invalid item key", e);
+            }
+        }
+        Item[] items = dictionary.toArray(new Item[0]);
+
+        long cellCount = data.readInt();
+        if (cellCount != BinaryFormat.cellCount(range)) {
+            throw new FileFormatException("Cell count does not match range");
+        }
+        byte[] types = new byte[(int) ((cellCount + 1) / 2)];
+        data.readFully(types);
+
+        int nodeCount = readCount(data);
+        if (nodeCount > cellCount) {
+            throw new FileFormatException("More nodes saved than cells on the grid");
+        }
+        int[] ids = readInts(data, nodeCount);
+        int[] keys = readInts(data, nodeCount);
+        int[] inputs = readInts(data, nodeCount);
+        int[] outputs = readInts(data, nodeCount);
+
+        GameGrid grid = new GameGrid(range);
+        Transport[] nodes = new Transport[nodeCount];
+        int cell = 0;
+        int node = 0;
+        for (int r = -range; r <= range; r++) {
+            int firstQ = Math.max(-range, -range - r);
+            int lastQ = Math.min(range, range - r);
+            for (int q = firstQ; q <= lastQ; q++, cell++) {
+                int type = (types[cell >> 1] >> ((cell & 1) * 4)) & 0xF;
+                GridComponent component;
+                if (type == BinaryFormat.UNSET) {
+                    continue;
+                } else if (type == BinaryFormat.WALL) {
+                    component = Tile.WALL;
+                } else if (type == BinaryFormat.EMPTY) {
+                    component = Tile.EMPTY;
+                } else {
+                    if (node == nodeCount) {
+                        throw new FileFormatException("More nodes on the grid than saved");
+                    }
+                    component = createNode(type, ids[node], keys[node], items);
+                    nodes[node++] = (Transport) component;
+                }
+                grid.setCoordinate(new Coordinate(q, r), component);
+            }
+        }
+        if (node != nodeCount) {
+            throw new FileFormatException("Fewer nodes on the grid than saved");
+        }
+
+        for (int i = 0; i < nodeCount; i++) {
+            // Producers cannot have an input and receivers cannot have an output
+            if (inputs[i] != 0 && nodes[i] instanceof Producer) {
+                throw new FileFormatException("Producer " + (i + 1) + " cannot have an input");
+            }
+            if (outputs[i] != 0 && nodes[i] instanceof Receiver) {
+                throw new FileFormatException("Receiver " + (i + 1) + " cannot have an output");
+            }
+            if (inputs[i] != 0) {
+                nodes[i].setInput(getNode(nodes, inputs[i]).getPath());
+            }
+            if (outputs[i] != 0) {
+                nodes[i].setOutput(getNode(nodes, outputs[i]).getPath());
+            }
+        }
+
+        // Saves before version 2 hold no state, so the nodes keep their initial state
+        if (version >= 2) {
+            readState(data, nodes, items);
+        }
+        return grid;
+    }
+
+    /**
+     * A helper method used to read the state of the simulation and restore it to the nodes.
+     * @param data the stream to read from.
+     * @param nodes every node, in cell order.
+     * @param items the item dictionary.
+     * @throws IOException if there is an error reading from the stream.
+     * @throws FileFormatException if the state is invalid.
+     */
+    private void readState(DataInputStream data, Transport[] nodes, Item[] items)
+            throws IOException, FileFormatException {
+        long ticks = data.readLong();
+        if (ticks < 0) {
+            throw new FileFormatException("Invalid tick count " + ticks);
+        }
+        int[] held = readInts(data, nodes.length);
+        int[] counters = readInts(data, nodes.length);
+
+        for (int i = 0; i < nodes.length; i++) {
+            if (held[i] < -1 || held[i] >= items.length) {
+                throw new FileFormatException("Invalid item index " + held[i]);
+            }
+            nodes[i].setStoredInventory(held[i] == -1 ? null : items[held[i]]);
+            if (nodes[i] instanceof Producer producer) {
+                producer.setCounter(counters[i]);
+            }
+        }
+        tickCount = ticks;
+    }
+
+    /**
+     * A helper method used to create a transport node from its saved type, id and key.
+     * @param type the cell type of the node.
+     * @param id the id of the node.
+     * @param key the index of the node's key in the item dictionary, or -1 for a belt.
+     * @param items the item dictionary.
+     * @return the new node.
+     * @throws FileFormatException if the type is not a node, or the key is invalid.
+     */
+    private static Transport createNode(int type, int id, int key, Item[] items)
+            throws FileFormatException {
+        if (type == BinaryFormat.BELT) {
+            return new Belt(id);
+        }
+        if (key < 0 || key >= items.length) {
+            throw new FileFormatException("Invalid key index " + key);
+        }
+        if (type == BinaryFormat.PRODUCER) {
+            return new Producer(id, items[key]);
+        }
+        if (type == BinaryFormat.RECEIVER) {
+            return new Receiver(id, items[key]);
+        }
+        throw new FileFormatException("Invalid cell type " + type);
+    }
+
+    /**
+     * A helper method used to get a node by its position in cell order.
+     * @param nodes every node, in cell order.
+     * @param position the position of the node, counting from 1.
+     * @return the node at the given position.
+     * @throws FileFormatException if there is no node at the position.
+     */
+    private static Transport getNode(Transport[] nodes, int position)
+            throws FileFormatException {
+        if (position < 1 || position > nodes.length) {
+            throw new FileFormatException("Invalid link to node " + position);
+        }
+        return nodes[position - 1];
+    }
+
+    /**
+     * A helper method used to read a count, which must not be negative.
+     * @param data the stream to read from.
+     * @return the count.
+     * @throws IOException if there is an error reading from the stream.
+     * @throws FileFormatException if the count is negative.
+     */
+    private static int readCount(DataInputStream data) throws IOException, FileFormatException {
+        int count = data.readInt();
+        if (count < 0) {
+            throw new FileFormatException("Invalid count " + count);
+        }
+        return count;
+    }
+
+    /**
+     * A helper method used to read an array of ints in a single read.
+     * @param data the stream to read from.
+     * @param length the number of ints to read.
+     * @return the ints read.
+     * @throws IOException if there is an error reading from the stream.
+     * @throws FileFormatException if there are too many ints to read in a single array.
+     */
+    private static int[] readInts(DataInputStream data, int length)
+            throws IOException, FileFormatException {
+        if (length < 0 || length > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new FileFormatException("Invalid count " + length);
+        }
+        byte[] bytes = new byte[length * Integer.BYTES];
+        data.readFully(bytes);
+        return BinaryFormat.toInts(bytes);
+    }
+}
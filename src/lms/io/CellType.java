@@ -0,0 +1,92 @@
+package lms.io;
+
+import lms.grid.GridComponent;
+import lms.grid.Tile;
+import lms.logistics.Transport;
+import lms.logistics.belts.Belt;
+import lms.logistics.container.Producer;
+import lms.logistics.container.Receiver;
+
+/**
+ * The kinds of cell that can be saved, shared by GameWriter and SaveImage so that the text and
+ * binary formats classify the components of a grid in one place. Each kind holds the character it
+ * is written as in section 5 of a text save and its cell type in the binary format.
+ * @see BinaryFormat
+ */
+enum CellType {
+    /** A cell that has not been set, which cannot be written to a text save. */
+    UNSET((char) 0, BinaryFormat.UNSET),
+    /** A wall. */
+    WALL(Tile.WALL.getEncoding().charAt(0), BinaryFormat.WALL),
+    /** An empty cell. */
+    EMPTY(Tile.EMPTY.getEncoding().charAt(0), BinaryFormat.EMPTY),
+    /** A Belt. */
+    BELT('b', BinaryFormat.BELT),
+    /** A Producer. */
+    PRODUCER('p', BinaryFormat.PRODUCER),
+    /** A Receiver. */
+    RECEIVER('r', BinaryFormat.RECEIVER);
+
+    /** The character of this kind of cell in a text save, or 0 if it cannot be written. */
+    private final char letter;
+    /** The cell type of this kind of cell in a binary save. */
+    private final byte code;
+
+    /**
+     * Constructs a new CellType.
+     * @param letter the character of the cell in a text save, or 0 if it cannot be written.
+     * @param code the cell type of the cell in a binary save.
+     */
+    CellType(char letter, byte code) {
+        this.letter = letter;
+        this.code = code;
+    }
+
+    /**
+     * Accessor method to get the character this kind of cell is written as in a text save, the
+     * inverse of the characters GameLoader reads.
+     * @return the character of the cell, or 0 if the cell cannot be written to a text save.
+     */
+    char getLetter() {
+        return letter;
+    }
+
+    /**
+     * Accessor method to get the cell type of this kind of cell in a binary save.
+     * @return the cell type, as described by BinaryFormat.
+     */
+    byte getCode() {
+        return code;
+    }
+
+    /**
+     * Finds the kind of cell a component is saved as. Nodes are matched by their exact class, so
+     * that a subclass which may hold state the formats have no room for is not saved as its
+     * superclass.
+     * @param component the component of a cell.
+     * @return the kind of cell of the component.
+     * @throws IllegalArgumentException if the component cannot be saved.
+     */
+    static CellType of(GridComponent component) throws IllegalArgumentException {
+        Class<?> type = component.getClass();
+        if (type == Belt.class) {
+            return BELT;
+        } else if (type == Producer.class) {
+            return PRODUCER;
+        } else if (type == Receiver.class) {
+            return RECEIVER;
+        } else if (component instanceof Transport) {
+            throw new IllegalArgumentException("Unsupported node " + component);
+        }
+
+        Tile tile = Tile.of(component);
+        if (tile == null) {
+            throw new IllegalArgumentException("Unsupported component " + component.getEncoding());
+        }
+        return switch (tile) {
+            case WALL -> WALL;
+            case EMPTY -> EMPTY;
+            case UNSET -> UNSET;
+        };
+    }
+}
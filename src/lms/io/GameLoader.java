@@ -1,7 +1,10 @@
 package lms.io;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.*;
 
 import lms.exceptions.*;
 import lms.grid.*;
@@ -13,17 +16,136 @@ import lms.logistics.container.*;
  * Class responsible for the leading of a text file containing the details of a simulated factory
  * and creating a GameGrid based off the information. Handles all files and errors related to
  * parsing etc.
+ * <p>
+ * The file is parsed in a single streaming pass: characters are read from the Reader in blocks,
+ * each line is collected into a reused character buffer and handled according to the section it
+ * is in, and the nodes are created and linked as soon as their line has been read. No String is
+ * created for a line, other than for the Item keys.
+ * <p>
+ * All of the state of a load is held by a GameLoader instance, so separate instances can load
+ * files concurrently, and nothing created by a load is reachable from the loader once it ends.
+ * <p>
+ * Files can also be loaded from a java.nio.file.Path, in which case they are memory-mapped and
+ * parsed from the mapped bytes as ASCII, without going through a Reader and its charset decoder.
+ * With a parallelism greater than one, the grid and link sections of a mapped file are split into
+ * chunks of whole lines which are parsed on separate threads. Each chunk of the grid is given the
+ * first row, node id and keys it starts at by counting the rows and nodes of the chunks before
+ * it, and the links parsed from each chunk are applied in the order they appear in the file, so
+ * the GameGrid loaded is exactly the same as when parsing sequentially.
+ * <p>
+ * A mapped file can also be loaded lazily with readLazily(). The whole file is still checked when
+ * it is loaded, but only the position and node counts of each row and the ids of the input and
+ * output of each node are kept, and the components of a row are created from the mapping the
+ * first time the row is queried through the GameGrid. Links are made as soon as both of the nodes
+ * they join have been created.
  */
 public class GameLoader {
-    /** Variable used to denote the end of a section in the text file. */
-    private static final String sectionEnd = "_____";
+    /** The number of sections in a valid file. */
+    private static final int SECTIONS = SaveLines.SECTIONS;
+    /** The number of characters read from the Reader at a time. */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** The smallest number of bytes of a section that is parsed as a separate chunk. */
+    private static final int MIN_CHUNK = 1 << 16;
+    /** The number of chunks each section is split into per thread when parsing in parallel. */
+    private static final int CHUNKS_PER_THREAD = 4;
+    /** The number of ints recorded per link line: the field count and the first three fields. */
+    private static final int LINK_INTS = 4;
+    /** Value of a link field which is not a valid number. */
+    private static final int INVALID = SaveLines.INVALID;
+
     /** The range of the GameGrid. */
-    private static int range;
+    private int range;
     /** The GameGrid variable. */
-    private static GameGrid gameGrid;
-    /** A Map containing all transport nodes for keys, and their relative Coordinate portion
-     * as the values. Used for locating nodes. */
-    private static final Map<Transport, Coordinate> position = new HashMap<>();
+    private GameGrid gameGrid;
+
+    /** The section currently being parsed, from 0. */
+    private int section;
+    /** The number of lines parsed so far in the current section. */
+    private int sectionLine;
+    /** The line currently being read. */
+    private final SaveLines lines = new SaveLines();
+
+    /** The number of producers given in section 2 of the file. */
+    private int numberProducers;
+    /** The number of receivers given in section 2 of the file. */
+    private int numberReceivers;
+    /** The registry that the Item keys are interned in. */
+    private ItemRegistry registry;
+    /** The keys of the producers, in the order they appear on the grid. */
+    private List<Item> producerItems;
+    /** The keys of the receivers, in the order they appear on the grid. */
+    private List<Item> receiverItems;
+    /** The number of producers placed on the grid so far. */
+    private int producerCount;
+    /** The number of receivers placed on the grid so far. */
+    private int receiverCount;
+    /** All transport nodes placed on the grid so far, indexed by their id - 1. */
+    private Transport[] nodes;
+    /** The number of transport nodes placed so far. */
+    private int nodeCount;
+    /** The row of the grid that the next line of section 5 represents. */
+    private int row;
+    /** The first fields of the link line currently being parsed. */
+    private final int[] fields = new int[3];
+
+    /** The number of threads used to parse the sections of mapped files. */
+    private int parallelism = 1;
+    /** The components of every cell read so far in row order, or null to write cells directly
+     * to the GameGrid. Only used while parsing in parallel. */
+    private GridComponent[] cells;
+    /** The index in cells at which each row starts. Only used while parsing in parallel. */
+    private int[] rowStart;
+    /** The field count and fields of each link line read, or null to link nodes directly. */
+    private int[] links;
+    /** The number of link lines recorded in links. */
+    private int linkCount;
+    /** The rows of the file being loaded lazily, or null if it is loaded in full. */
+    private LazyRows lazyRows;
+
+    /**
+     * Constructs a new GameLoader, which can then be used to load any number of files.
+     */
+    public GameLoader() {
+    }
+
+    /**
+     * Constructs a new GameLoader used to parse a chunk of one section of a file on another
+     * thread, sharing the keys and node array of the loader that is loading the file.
+     * @param parent the loader that is loading the file.
+     * @param section the section that the chunk is in.
+     */
+    private GameLoader(GameLoader parent, int section) {
+        this.range = parent.range;
+        this.section = section;
+        this.sectionLine = 1;
+        this.producerItems = parent.producerItems;
+        this.receiverItems = parent.receiverItems;
+        this.nodes = parent.nodes;
+        this.cells = parent.cells;
+        this.rowStart = parent.rowStart;
+    }
+
+    /**
+     * Accessor method to get the number of threads used to parse mapped files.
+     * @return the parallelism of this loader, 1 if files are parsed on the calling thread.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads used to parse the grid and link sections of files loaded from a
+     * java.nio.file.Path. Files loaded from a Reader are always parsed on the calling thread, as
+     * a Reader can only be read once from start to end.
+     * @param parallelism the number of threads to parse with.
+     * @throws IllegalArgumentException if the parallelism is less than 1.
+     */
+    public void setParallelism(int parallelism) throws IllegalArgumentException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.parallelism = parallelism;
+    }
 
     /**
      * A helper method used to convert a [row, column] position into a hexagonal Coordinate.
@@ -31,284 +153,882 @@ public class GameLoader {
      * @param column the current 2-dimensional column.
      * @return Coordinate corresponding to the [row, column] position given.
      */
-    private static Coordinate toCoordinate(int row, int column) {
-        /* Calculates q by using the logic that the column is dependent on row.
-         * Upper half -> column - row, lower half -> column - range. */
-        int q = column - Math.min(range, row);
-        int r = row - range;  // More intuitive than q
-        return new Coordinate(q, r);
+    private Coordinate toCoordinate(int row, int column) {
+        return SaveRows.toCoordinate(range, row, column);
     }
 
     /**
-     * A helper method used to instantiate Items from a List of keys, and return a List
-     * containing the initialised Items.
-     * @param keys the list of item keys as retrieved by parsing the text file.
-     * @return list containing all Items corresponding to the keys in the input list.
+     * A helper method used to parse the current line as a single non-negative number.
+     * @return the number on the current line.
+     * @throws FileFormatException if the line is not a valid number.
      */
-    private static List<Item> getItems(List<String> keys) {
-        List<Item> itemList = new ArrayList<>();
-
-        for (String key : keys) {
-            itemList.add(new Item(key));
+    private int parseLine() throws FileFormatException {
+        int value = lines.parseLine();
+        if (value == INVALID) {
+            throw new FileFormatException();
         }
-        return itemList;
+        return value;
     }
 
     /**
-     * A helper method used to split a List of all the lines in the text file into a List
-     * containing lists that correspond to the separate sections of the text file (i.e. the
-     * sections that are separated by 5 underscores). The list can then be used to access each
-     * section of the text file easily.
-     * @param lines a list containing all the lines of the text file.
-     * @return a List of Lists, with each list being a separate section of the file.
-     * @throws FileFormatException if there are not exactly 6 section in the file.
+     * A helper method used to handle the current line according to the section it is in, once it
+     * has been read in full.
+     * @throws FileFormatException if the line is invalid, or there are more than 6 sections.
      */
-    private static List<List<String>> splitSections(List<String> lines) throws FileFormatException {
-        List<Integer> breakPoints = new ArrayList<>();
-
-        // Creating a list of integers, to mark the indices where the input list should be split
-        // The breakpoint is any occurrence of '_____' (sectionEnd)
-        String toCheck;
-        int countSections = 1;
-        int index = 0;
-        for (String line : lines) {
-            try {
-                toCheck = line.substring(0, 5);
-            } catch (IndexOutOfBoundsException e) {
-                toCheck = null;
-                index++;
-                continue;
+    private void endLine() throws FileFormatException {
+        if (lines.isSectionEnd()) {
+            endSection();
+            section++;
+            sectionLine = 0;
+            // If the number of sections != 6, the file is invalid
+            if (section == SECTIONS) {
+                throw new FileFormatException();
             }
-            if (Objects.equals(toCheck, sectionEnd)) {
-                breakPoints.add(index);
-                countSections++;
+        } else {
+            switch (section) {
+                // Range is the first line of the file, the rest of the section is ignored
+                case 0 -> {
+                    if (sectionLine == 0) {
+                        range = parseLine();
+                        gameGrid = lazyRows == null
+                                ? new GameGrid(range)
+                                : new GameGrid(range, lazyRows);
+                    }
+                }
+
+                // Number of producers followed by the number of receivers
+                case 1 -> {
+                    if (sectionLine == 0) {
+                        numberProducers = parseLine();
+                    } else if (sectionLine == 1) {
+                        numberReceivers = parseLine();
+                    }
+                }
+
+                // Interns all Items, so equal keys share an Item and an id
+                case 2 -> producerItems.add(getItem());
+                case 3 -> receiverItems.add(getItem());
+
+                case 4 -> readRow();
+                default -> linkNode();
             }
-            index++;
+            sectionLine++;
+        }
+        lines.clear();
+    }
+
+    /**
+     * A helper method used to check that the section that is being parsed was complete, when its
+     * end is reached.
+     * @throws FileFormatException if the section is missing any required lines.
+     */
+    private void endSection() throws FileFormatException {
+        if ((section == 0 && sectionLine < 1) || (section == 1 && sectionLine < 2)) {
+            throw new FileFormatException();
+        }
+    }
+
+    /**
+     * A helper method used to intern the key on the current line.
+     * @return the Item corresponding to the key.
+     * @throws FileFormatException if the key is empty.
+     */
+    private Item getItem() throws FileFormatException {
+        if (lines.length() == 0) {
+            throw new FileFormatException();
         }
+        return registry.intern(lines.toString());
+    }
 
-        // If the number of sections != 6, the file is invalid
-        if (countSections != 6) {
+    /**
+     * A method used for reading a row of the grid section of the text file (section 5). Nodes are
+     * initialised, written to the GameGrid and added to the list of nodes as they are read, and
+     * wall and blank cells are written to the GameGrid.
+     * @throws FileFormatException if the grid is not hexagonal, there are more producers or
+     * receivers than keys, or if the row is formatted incorrectly.
+     */
+    private void readRow() throws FileFormatException {
+        // Rows past the bottom of the hexagon are outside of the grid
+        if (row >= SaveRows.rows(range)) {
             throw new FileFormatException();
         }
 
-        List<List<String>> section = new ArrayList<>();
+        // Max length of current row in maze
+        int current = SaveRows.width(range, row);
+        int column = 0;
+        char[] line = lines.chars();
+        int length = lines.length();
+
+        // For each letter in the row
+        for (int i = 0; i < length; i++) {
+            char letter = line[i];
+
+            // If column exceeds the max, throw error
+            if (column + 1 > current) {
+                throw new FileFormatException();
+            }
+
+            switch (letter) {
+                // Send to GameGrid
+                case 'w' -> put(column, Tile.WALL);
+                case 'o' -> put(column, Tile.EMPTY);
+
+                // Initialise, save and send to GameGrid
+                case 'p' -> {
+                    if (producerCount == producerItems.size()) {
+                        throw new FileFormatException();
+                    }
+                    place(new Producer(nodeCount + 1, producerItems.get(producerCount)), column);
+                    producerCount++;
+                }
+                case 'r' -> {
+                    if (receiverCount == receiverItems.size()) {
+                        throw new FileFormatException();
+                    }
+                    place(new Receiver(nodeCount + 1, receiverItems.get(receiverCount)), column);
+                    receiverCount++;
+                }
+                case 'b' -> place(new Belt(nodeCount + 1), column);
 
-        int last = -1;
+                // Skip whitespace
+                case ' ' -> {
+                    continue;
+                }
 
-        // Breaks the input list into sublist, according to the breakpoints previously found
-        for (int breakPoint : breakPoints) {
-            section.add(lines.subList(last + 1, breakPoint));
-            last = breakPoint;
+                // Throw error if any other character is present
+                default -> throw new FileFormatException();
+            }
+            column++;
         }
 
-        section.add(lines.subList(last  + 1, lines.size()));
+        // Enforces the hexagonal grid shape
+        if (column != current) {
+            throw new FileFormatException();
+        }
 
-        return section;
+        row++;
     }
 
+    /**
+     * A helper method used to save a new transport node and write it to the GameGrid.
+     * @param node the node to place, whose id is one more than the number of nodes so far.
+     * @param column the column of the current row to place the node in.
+     */
+    private void place(Transport node, int column) {
+        if (nodeCount == nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.max(16, nodes.length * 2));
+        }
+        nodes[nodeCount++] = node;
+        put(column, node);
+    }
 
     /**
-     * A method used for retrieving nodes from the grid section of the text file (section 5). The
-     * nodes are initialised, their position is saved, and they are added to a list of nodes. All
-     * wall and blank cells are written to the GameGrid immediately as they do not require linking.
-     * @param section the list containing the lines from section 5 of the text file (the lines of
-     *               the grid representation)
-     * @param producerItems list of all Items needed for producers.
-     * @param receiverItems list of all Items needed for receivers.
-     * @return list of all transport nodes for this GameGrid.
-     * @throws FileFormatException if the grid is not hexagonal or if the file is formatted
-     * incorrectly.
+     * A helper method used to write a component to a cell of the current row, either directly to
+     * the GameGrid or to the cells read in parallel.
+     * @param column the column of the current row to write to.
+     * @param component the component of the cell.
      */
-    private static List<Transport> getNodes(List<String> section, List<Item> producerItems,
-                                           List<Item> receiverItems) throws FileFormatException {
-        int row = 0;
-        int column;
-        int id = 1;
-        int max = range * 2 + 1; // Max length of any row in the maze
-        int current; // Max length of current row in maze
+    private void put(int column, GridComponent component) {
+        if (cells == null) {
+            gameGrid.setCoordinate(toCoordinate(row, column), component);
+        } else {
+            cells[rowStart[row] + column] = component;
+        }
+    }
 
-        List<Transport> nodes = new ArrayList<>();
+    /**
+     * A helper method used to get a node by the id it was given in the file.
+     * @param id the id of the node.
+     * @return the node with the given id, or null if there is no such node.
+     */
+    private Transport getNode(int id) {
+        return id >= 1 && id <= nodeCount ? nodes[id - 1] : null;
+    }
 
-        // For each row in the hexagonal grid
-        for (String line : section) {
+    /**
+     * A method used for linking a node to its neighbours based off the current line of section 6
+     * of the file. The line is split on either "-" or "," into fields, in the same way as
+     * String.split would, without creating any Strings. While parsing in parallel the fields are
+     * recorded, to be linked later in the order they appear in the file.
+     * @throws FileFormatException if the linking information is invalid.
+     */
+    private void linkNode() throws FileFormatException {
+        int count = lines.parseFields(fields, null, null);
 
-            // Max length calculated and stored
-            current = max - Math.abs(row - range);
-            column = 0;
+        if (lazyRows != null) {
+            lazyRows.link(count, fields[0], fields[1], fields[2]);
+            return;
+        }
+        if (links == null) {
+            applyLink(count, fields[0], fields[1], fields[2]);
+            return;
+        }
+        if ((linkCount + 1) * LINK_INTS > links.length) {
+            links = Arrays.copyOf(links, Math.max(64, links.length * 2));
+        }
+        int index = linkCount++ * LINK_INTS;
+        links[index] = count;
+        System.arraycopy(fields, 0, links, index + 1, fields.length);
+    }
 
-            // Row split up
-            String[] lineSplit = line.split("");
+    /**
+     * A helper method used to link a node to its neighbours based off the fields of a line of
+     * section 6 of the file.
+     * @param count the number of fields on the line, ignoring trailing empty fields.
+     * @param first the first field (the id of the node), or INVALID.
+     * @param second the second field, or INVALID.
+     * @param third the third field, or INVALID.
+     * @throws FileFormatException if the linking information is invalid.
+     */
+    private void applyLink(int count, int first, int second, int third)
+            throws FileFormatException {
+        // First field representing id of the node
+        Transport currentNode = count == 0 ? null : getNode(first);
+        if (currentNode == null) {
+            throw new FileFormatException();
+        }
 
-            // For each letter in the row
-            for (String letter : lineSplit) {
+        // Split based off the node type, as the type dictates how the information is processed
+        switch (currentNode.getEncoding()) {
 
-                // If column exceeds the max, throw error
-                if (column + 1 > current) {
+            // Second number is the nextNode, there cant be 3 numbers for a Producer
+            case "p" -> {
+                Transport nextNode = count == 2 ? getNode(second) : null;
+                if (nextNode == null) {
                     throw new FileFormatException();
                 }
+                connect(currentNode, nextNode);
+            }
 
-                try {
-                    switch (letter) {
-                        // Send to GameGrid
-                        case "w" -> {
-                            gameGrid.setCoordinate(toCoordinate(row, column), () -> "w");
-                            column++;
-                        }
+            // Second number is the previousNode, there cant be 3 numbers for a Receiver
+            case "r" -> {
+                Transport previousNode = count == 2 ? getNode(second) : null;
+                if (previousNode == null) {
+                    throw new FileFormatException();
+                }
+                connect(previousNode, currentNode);
+            }
 
-                        // Send to GameGrid
-                        case "o" -> {
-                            gameGrid.setCoordinate(toCoordinate(row, column), () -> "o");
-                            column++;
-                        }
+            // Second number is the previousNode and third number is nextNode, either of which
+            // is ignored if it is missing or invalid
+            default -> {
+                Transport previousNode = count > 1 ? getNode(second) : null;
+                if (previousNode != null) {
+                    connect(previousNode, currentNode);
+                }
 
-                        // Initialise and save
-                        case "p" -> {
-                            Producer producer = new Producer(id, producerItems.get(0));
-                            position.put(producer, toCoordinate(row, column));
-                            producerItems.remove(0);
-                            nodes.add(producer);
-                            id++;
-                            column++;
-                        }
+                Transport nextNode = count > 2 ? getNode(third) : null;
+                if (nextNode != null) {
+                    connect(currentNode, nextNode);
+                }
+            }
+        }
+    }
 
-                        // Initialise and save
-                        case "r" -> {
-                            Receiver receiver = new Receiver(id, receiverItems.get(0));
-                            position.put(receiver, toCoordinate(row, column));
-                            receiverItems.remove(0);
-                            nodes.add(receiver);
-                            id++;
-                            column++;
-                        }
+    /**
+     * A helper method used to link two nodes both ways, checking that the link is possible so a
+     * malformed file cannot cause an UnsupportedActionException.
+     * @param previous the node to link from, which becomes the input of next.
+     * @param next the node to link to, which becomes the output of previous.
+     * @throws FileFormatException if previous is a receiver or next is a producer.
+     */
+    private static void connect(Transport previous, Transport next) throws FileFormatException {
+        if (previous instanceof Receiver || next instanceof Producer) {
+            throw new FileFormatException();
+        }
+        previous.setOutput(next.getPath());
+        next.setInput(previous.getPath());
+    }
 
-                        // Initialise and save
-                        case "b" -> {
-                            Belt belt = new Belt(id);
-                            position.put(belt, toCoordinate(row, column));
-                            nodes.add(belt);
-                            column++;
-                            id++;
-                        }
+    /**
+     * A helper method used to reset the state of the loader before a file is parsed.
+     */
+    private void begin() {
+        range = 0;
+        gameGrid = null;
+        section = 0;
+        sectionLine = 0;
+        lines.reset();
+        numberProducers = 0;
+        numberReceivers = 0;
+        registry = new ItemRegistry();
+        producerItems = new ArrayList<>();
+        receiverItems = new ArrayList<>();
+        producerCount = 0;
+        receiverCount = 0;
+        nodes = new Transport[16];
+        nodeCount = 0;
+        row = 0;
+    }
 
-                        // Skip whitespace
-                        case " " -> {
-                        }
+    /**
+     * A helper method used to check that the whole file was valid once it has been parsed.
+     * @return the GameGrid loaded from the file.
+     * @throws FileFormatException if there are not exactly 6 sections, or the number of
+     * producers, receivers and keys do not match.
+     */
+    private GameGrid finish() throws FileFormatException {
+        // The last line does not need to be terminated
+        if (lines.length() > 0) {
+            endLine();
+        }
+
+        if (section != SECTIONS - 1) {
+            throw new FileFormatException();
+        }
+
+        if (producerCount != numberProducers || receiverCount != numberReceivers
+                            || producerItems.size() != producerCount
+                            || receiverItems.size() != receiverCount) {
+            throw new FileFormatException();
+        }
+
+        return gameGrid;
+    }
+
+    /**
+     * A helper method used to drop every reference to the objects created by the last load, so
+     * that they can be garbage collected along with the GameGrid.
+     */
+    private void clear() {
+        gameGrid = null;
+        registry = null;
+        producerItems = null;
+        receiverItems = null;
+        nodes = null;
+        cells = null;
+        rowStart = null;
+        links = null;
+        lazyRows = null;
+    }
+
+    /**
+     * Parses a grid map text file with this loader. A loader can be reused for any number of
+     * files, one at a time; files can be loaded concurrently by using a separate loader for each.
+     * Once a load has finished, the loader holds no references to anything it created.
+     * @param readerGiven the reader to read from.
+     * @return the GameGrid loaded from the reader file.
+     * @throws IOException if there is an error reading from the reader.
+     * @throws FileFormatException if the file is not in the correct format.
+     */
+    public GameGrid read(Reader readerGiven) throws IOException, FileFormatException {
+
+        // Null reader
+        if (readerGiven == null) {
+            throw new NullPointerException();
+        }
+
+        begin();
+        try {
+            // Lines end at "\n", "\r" or "\r\n", as with BufferedReader.readLine()
+            char[] buffer = new char[BUFFER_SIZE];
+            int read;
+            while ((read = readerGiven.read(buffer)) != -1) {
+                int start = 0;
+                while ((start = lines.accept(buffer, start, read)) >= 0) {
+                    endLine();
+                }
+            }
+            return finish();
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Parses a grid map text file with this loader, reading it through a memory mapping rather
+     * than a Reader. The file must only contain ASCII characters. If the parallelism of this
+     * loader is greater than one, the grid and link sections are parsed in parallel.
+     * @param file the path of the file to load.
+     * @return the GameGrid loaded from the file.
+     * @throws IOException if there is an error opening or mapping the file.
+     * @throws FileFormatException if the file is not in the correct format, or contains a
+     * character that is not ASCII.
+     */
+    public GameGrid read(java.nio.file.Path file) throws IOException, FileFormatException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedSave save = new MappedSave(channel);
+            begin();
+            try {
+                if (parallelism > 1) {
+                    readParallel(save);
+                } else {
+                    scan(save, 0, save.size(), SECTIONS);
+                }
+                return finish();
+            } finally {
+                clear();
+            }
+        }
+    }
+
+    /**
+     * Loads a grid map text file lazily with this loader, through a memory mapping. The whole
+     * file is checked in the same way as by read(), without creating any of its components, and
+     * the components of each row are only created when the row is first queried through the
+     * returned GameGrid. Nodes are linked as soon as both of the nodes in a link have been created,
+     * so every link between created nodes is always present.
+     * <p>
+     * The file must only contain ASCII characters, and must not be changed while the returned grid
+     * has rows that have not been queried. The file is always read on the calling thread.
+     * @param file the path of the file to load.
+     * @return the GameGrid loaded from the file, whose rows are populated when first queried.
+     * @throws IOException if there is an error opening or mapping the file.
+     * @throws FileFormatException if the file is not in the correct format, or contains a
+     * character that is not ASCII.
+     * @see GameGrid#GameGrid(int, RowSource)
+     */
+    public GameGrid readLazily(java.nio.file.Path file) throws IOException, FileFormatException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedSave save = new MappedSave(channel);
+            begin();
+            try {
+                lazyRows = new LazyRows(save);
+                long gridStart = scan(save, 0, save.size(), SECTIONS - 2);
+                long gridEnd = findSectionEnd(save, gridStart, save.size());
+                if (section != SECTIONS - 2 || gridEnd < 0) {
+                    throw new FileFormatException();
+                }
+                indexRows(save, gridStart, gridEnd);
+
+                // The link lines are resolved into the links of each node, made as rows are created
+                section = SECTIONS - 1;
+                sectionLine = 0;
+                scan(save, nextLine(save, gridEnd + 1, save.size()), save.size(), SECTIONS);
+                if (lines.length() > 0) {
+                    endLine();
+                }
+                GameGrid grid = finish();
+                lazyRows.finishLinks(new GameLoader(this, SECTIONS - 2));
+                return grid;
+            } finally {
+                clear();
+            }
+        }
+    }
 
-                        // Throw error if any other character is present
-                        default -> throw new FileFormatException();
+    /**
+     * A helper method used to check the rows of the grid section of a lazily loaded file and
+     * record where each row is and the nodes it holds, without creating any components.
+     * @param save the mapped file.
+     * @param from the position of the first row of the grid.
+     * @param to the position of the end of the grid section.
+     * @throws FileFormatException if the grid is not in the correct format.
+     */
+    private void indexRows(MappedSave save, long from, long to) throws FileFormatException {
+        LazyRows index = lazyRows;
+        int rows = SaveRows.rows(range);
+        index.rowOffset = new long[rows];
+        index.rowLength = new int[rows];
+        index.firstNode = new int[rows + 1];
+        index.firstProducer = new int[rows + 1];
+        index.firstReceiver = new int[rows + 1];
+        index.types = new byte[16];
+        index.nodeCount = 0;
+
+        // Checks each row as readRow() would, counting the cells of the row in column
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, to - from)];
+        boolean afterCarriageReturn = false;
+        long lineStart = from;
+        int column = 0;
+        for (long offset = from; offset < to; offset += buffer.length) {
+            int read = (int) Math.min(buffer.length, to - offset);
+            save.get(offset, buffer, read);
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                if (b == '\n' || b == '\r') {
+                    if (b == '\r' || !afterCarriageReturn) {
+                        indexRow(lineStart, offset + i, column);
                     }
+                    afterCarriageReturn = b == '\r';
+                    lineStart = offset + i + 1;
+                    column = 0;
+                    continue;
+                }
+                afterCarriageReturn = false;
 
-                } catch (Error e) {
-                    // Any error is a result of incorrect file formatting
+                switch (b) {
+                    case ' ' -> {
+                        continue;
+                    }
+                    case 'w', 'o' -> {
+                    }
+                    case 'p', 'r', 'b' -> {
+                        if (b == 'p' && producerCount++ == producerItems.size()) {
+                            throw new FileFormatException();
+                        }
+                        if (b == 'r' && receiverCount++ == receiverItems.size()) {
+                            throw new FileFormatException();
+                        }
+                        if (nodeCount == index.types.length) {
+                            index.types = Arrays.copyOf(index.types, nodeCount * 2);
+                        }
+                        index.types[nodeCount++] = b;
+                    }
+                    default -> throw new FileFormatException();
+                }
+                if (row >= rows || ++column > SaveRows.width(range, row)) {
                     throw new FileFormatException();
                 }
             }
+        }
+        if (lineStart < to) {
+            indexRow(lineStart, to, column);
+        }
 
-            // Enforces the hexagonal grid shape
-            if (column != current) {
-                throw new FileFormatException();
+        // Rows missing from the end of the file are left unset, as when loading in full
+        for (int r = row + 1; r <= rows; r++) {
+            index.firstNode[r] = nodeCount;
+            index.firstProducer[r] = producerCount;
+            index.firstReceiver[r] = receiverCount;
+        }
+        index.rowCount = row;
+        index.nodeCount = nodeCount;
+        index.input = new int[nodeCount + 1];
+        index.output = new int[nodeCount + 1];
+    }
+
+    /**
+     * A helper method used to record the position of a row of a lazily loaded file, and the
+     * number of nodes before the next row, once the end of the row has been reached.
+     * @param start the position of the start of the row.
+     * @param end the position of the end of the row, not including its line terminator.
+     * @param columns the number of cells in the row.
+     * @throws FileFormatException if the row is outside of the grid or not the width of its row
+     * of the hexagon.
+     */
+    private void indexRow(long start, long end, int columns) throws FileFormatException {
+        if (row >= SaveRows.rows(range) || columns != SaveRows.width(range, row)) {
+            throw new FileFormatException();
+        }
+        lazyRows.rowOffset[row] = start;
+        lazyRows.rowLength[row] = (int) (end - start);
+        row++;
+        lazyRows.firstNode[row] = nodeCount;
+        lazyRows.firstProducer[row] = producerCount;
+        lazyRows.firstReceiver[row] = receiverCount;
+    }
+
+    /**
+     * A helper method used to parse the lines in part of a mapped file, until the end of the part
+     * or the start of a given section.
+     * @param save the mapped file.
+     * @param from the position of the start of the first line to parse.
+     * @param to the position after the last byte to parse.
+     * @param stop the section to stop parsing at, once its start has been read.
+     * @return the position of the first line of the stop section, or to if it was not reached.
+     * @throws FileFormatException if the lines are invalid or contain a character that is not
+     * ASCII.
+     */
+    private long scan(MappedSave save, long from, long to, int stop) throws FileFormatException {
+        // The mapping is scanned a block at a time, as indexing a mapped buffer directly is much
+        // slower than indexing an array
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, to - from)];
+        lines.reset();
+        for (long offset = from; offset < to; offset += buffer.length) {
+            int read = (int) Math.min(buffer.length, to - offset);
+            save.get(offset, buffer, read);
+
+            // Lines end in the same way as for a Reader, and may span blocks
+            int start = 0;
+            while ((start = lines.accept(buffer, start, read)) >= 0) {
+                endLine();
+
+                if (section == stop) {
+                    long next = offset + start;
+                    if (lines.afterCarriageReturn() && next < to && save.get(next) == '\n') {
+                        next++;
+                    }
+                    return next;
+                }
             }
+        }
+        return to;
+    }
 
-            row++;
+    /**
+     * A helper method used to parse a mapped file with the grid and link sections split into
+     * chunks that are parsed in parallel. The first four sections are parsed on the calling
+     * thread, as they are small and every chunk of the grid depends on them.
+     * @param save the mapped file.
+     * @throws FileFormatException if the file is not in the correct format.
+     */
+    private void readParallel(MappedSave save) throws FileFormatException {
+        long gridStart = scan(save, 0, save.size(), SECTIONS - 2);
+        long gridEnd = findSectionEnd(save, gridStart, save.size());
+        if (section != SECTIONS - 2 || gridEnd < 0) {
+            throw new FileFormatException();
+        }
+        long linkStart = nextLine(save, gridEnd + 1, save.size());
+        if (findSectionEnd(save, linkStart, save.size()) >= 0) {
+            throw new FileFormatException();
         }
 
-        return nodes;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            readGrid(pool, save, gridStart, gridEnd);
+            readLinks(pool, save, linkStart, save.size());
+        } finally {
+            pool.shutdown();
+        }
     }
 
     /**
-     * A method used for linking all nodes in the nodes list to each other based off the
-     * information obtained from section 6 of the file.
-     * @param section the list containing the lines from section 6 of the text file (the lines with
-     *              linking information).
-     * @param nodes list of all nodes in this GameGrid.
-     * @return list of all nodes, which are now linked.
-     * @throws FileFormatException if the linking information is invalid.
+     * A helper method used to parse the grid section of a mapped file in parallel. The rows and
+     * nodes of every chunk are counted first, so that each chunk can be given the row, node id and
+     * keys it starts at, and the cells read by every chunk are written to the GameGrid once all
+     * chunks have been parsed.
+     * @param pool the pool to parse the chunks on.
+     * @param save the mapped file.
+     * @param from the position of the first row of the grid.
+     * @param to the position of the end of the grid section.
+     * @throws FileFormatException if the grid is not in the correct format.
      */
-    private static List<Transport> linkNodes(List<String> section, List<Transport> nodes)
+    private void readGrid(ForkJoinPool pool, MappedSave save, long from, long to)
             throws FileFormatException {
+        long[] bounds = split(save, from, to);
 
-        // For each line
-        for (String line : section) {
+        List<Callable<int[]>> counts = new ArrayList<>();
+        for (int chunk = 0; chunk < bounds.length - 1; chunk++) {
+            long start = bounds[chunk];
+            long end = bounds[chunk + 1];
+            counts.add(() -> count(save, start, end));
+        }
+        List<int[]> totals = invokeAll(pool, counts);
 
-            // Split on either "-" or ","
-            String[] lineSplit = line.split("[-,]");
+        int rows = SaveRows.rows(range);
+        rowStart = new int[rows + 1];
+        for (int i = 0; i < rows; i++) {
+            rowStart[i + 1] = rowStart[i] + SaveRows.width(range, i);
+        }
+        cells = new GridComponent[rowStart[rows]];
+        int totalNodes = 0;
+        for (int[] total : totals) {
+            totalNodes += total[3];
+        }
+        nodes = new Transport[totalNodes];
+
+        // Each chunk starts where the chunks before it end
+        List<Callable<Void>> chunks = new ArrayList<>();
+        for (int chunk = 0; chunk < bounds.length - 1; chunk++) {
+            GameLoader worker = new GameLoader(this, SECTIONS - 2);
+            worker.row = row;
+            worker.producerCount = producerCount;
+            worker.receiverCount = receiverCount;
+            worker.nodeCount = nodeCount;
+
+            int[] total = totals.get(chunk);
+            row += total[0];
+            producerCount += total[1];
+            receiverCount += total[2];
+            nodeCount += total[3];
+
+            long start = bounds[chunk];
+            long end = bounds[chunk + 1];
+            chunks.add(() -> {
+                worker.scan(save, start, end, SECTIONS);
+                if (worker.lines.length() > 0) {
+                    worker.endLine();
+                }
+                return null;
+            });
+        }
+        invokeAll(pool, chunks);
 
-            // First character representing id of the node
-            int currentId = Integer.parseInt(lineSplit[0]);
+        for (int r = 0; r < rows; r++) {
+            for (int index = rowStart[r]; index < rowStart[r + 1]; index++) {
+                if (cells[index] != null) {
+                    gameGrid.setCoordinate(toCoordinate(r, index - rowStart[r]), cells[index]);
+                }
+            }
+        }
+        cells = null;
+        rowStart = null;
+    }
 
-            Transport currentNode = nodes.get(currentId - 1);
+    /**
+     * A helper method used to parse the link section of a mapped file in parallel. The fields of
+     * every line are parsed in parallel, then the nodes are linked in the order the lines appear
+     * in the file.
+     * @param pool the pool to parse the chunks on.
+     * @param save the mapped file.
+     * @param from the position of the first link line.
+     * @param to the position of the end of the file.
+     * @throws FileFormatException if the linking information is invalid.
+     */
+    private void readLinks(ForkJoinPool pool, MappedSave save, long from, long to)
+            throws FileFormatException {
+        section = SECTIONS - 1;
+        long[] bounds = split(save, from, to);
+
+        List<Callable<GameLoader>> chunks = new ArrayList<>();
+        for (int chunk = 0; chunk < bounds.length - 1; chunk++) {
+            long start = bounds[chunk];
+            long end = bounds[chunk + 1];
+            chunks.add(() -> {
+                GameLoader worker = new GameLoader(this, SECTIONS - 1);
+                worker.links = new int[0];
+                worker.scan(save, start, end, SECTIONS);
+                if (worker.lines.length() > 0) {
+                    worker.endLine();
+                }
+                return worker;
+            });
+        }
 
-            int nextId;
-            int previousId;
+        for (GameLoader worker : invokeAll(pool, chunks)) {
+            for (int i = 0; i < worker.linkCount * LINK_INTS; i += LINK_INTS) {
+                int[] link = worker.links;
+                applyLink(link[i], link[i + 1], link[i + 2], link[i + 3]);
+            }
+        }
+    }
 
-            Transport nextNode;
-            Transport previousNode;
+    /**
+     * A helper method used to count the rows and nodes in a chunk of the grid section.
+     * @param save the mapped file.
+     * @param from the position of the first row of the chunk.
+     * @param to the position after the end of the last row of the chunk.
+     * @return array of the number of rows, producers, receivers and transport nodes, in order.
+     */
+    private static int[] count(MappedSave save, long from, long to) {
+        int[] total = new int[4];
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, to - from)];
+        boolean afterCarriageReturn = false;
+        for (long offset = from; offset < to; offset += buffer.length) {
+            int read = (int) Math.min(buffer.length, to - offset);
+            save.get(offset, buffer, read);
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                if (b == '\n' || b == '\r') {
+                    if (b == '\r' || !afterCarriageReturn) {
+                        total[0]++;
+                    }
+                    afterCarriageReturn = b == '\r';
+                    continue;
+                }
+                afterCarriageReturn = false;
+                if (b == 'p') {
+                    total[1]++;
+                } else if (b == 'r') {
+                    total[2]++;
+                }
+                if (b == 'p' || b == 'r' || b == 'b') {
+                    total[3]++;
+                }
+            }
+        }
 
-            // Split based off the node type, as the type dictates how the information is processed
-            switch (currentNode.getEncoding()) {
+        // The last row of the file does not need to be terminated
+        if (to > from && save.get(to - 1) != '\n' && save.get(to - 1) != '\r') {
+            total[0]++;
+        }
+        return total;
+    }
 
-                // Second number is the nextNode
-                case "p" -> {
-                    // There cant be 3 numbers for a Producer
-                    if (lineSplit.length > 2) {
-                        throw new FileFormatException();
-                    }
-                    nextId = Integer.parseInt(lineSplit[1]);
-                    nextNode = nodes.get(nextId - 1);
-                    currentNode.setOutput(nextNode.getPath());
-                    nextNode.setInput(currentNode.getPath());
-                    nodes.set(currentId - 1, currentNode);
-                    nodes.set(nextId - 1, nextNode);
-                }
-
-                // Second number is the previousNode
-                case "r" -> {
-                    // There cant be 3 numbers for a Receiver
-                    if (lineSplit.length > 2) {
-                        throw new FileFormatException();
-                    }
-                    previousId = Integer.parseInt(lineSplit[1]);
-                    previousNode = nodes.get(previousId - 1);
-                    currentNode.setInput(previousNode.getPath());
-                    previousNode.setOutput(currentNode.getPath());
-                    nodes.set(currentId - 1, currentNode);
-                    nodes.set(previousId - 1, previousNode);
-                }
-
-                // Second number is the previousNode and third number is nextNode
-                case "b" -> {
-                    try {
-                        // Set previous node
-                        previousId = Integer.parseInt(lineSplit[1]);
-                        previousNode = nodes.get(previousId - 1);
-                        currentNode.setInput(previousNode.getPath());
-                        previousNode.setOutput(currentNode.getPath());
-                        nodes.set(currentId - 1, currentNode);
-                        nodes.set(previousId - 1, previousNode);
-
-                    } catch (NumberFormatException | IndexOutOfBoundsException ignored) {
-                        // Ignored
-                    }
+    /**
+     * A helper method used to split part of a mapped file into chunks of whole lines, with one
+     * chunk per CHUNKS_PER_THREAD threads but none smaller than MIN_CHUNK bytes.
+     * @param save the mapped file.
+     * @param from the position of the first line of the part.
+     * @param to the position of the end of the part.
+     * @return array of length chunks + 1, where chunk k covers the bytes from element k
+     * (inclusive) to element k + 1 (exclusive).
+     */
+    private long[] split(MappedSave save, long from, long to) {
+        int chunks = (int) Math.max(1, Math.min((long) parallelism * CHUNKS_PER_THREAD,
+                (to - from) / MIN_CHUNK));
+        long[] bounds = new long[chunks + 1];
+        bounds[0] = from;
+        for (int k = 1; k < chunks; k++) {
+            long target = from + (to - from) * k / chunks;
+            bounds[k] = nextLine(save, Math.max(target, bounds[k - 1] + 1), to);
+        }
+        bounds[chunks] = to;
+        return bounds;
+    }
 
-                    try {
-                        // Set next node
-                        nextId = Integer.parseInt(lineSplit[2]);
-                        nextNode = nodes.get(nextId - 1);
-                        currentNode.setOutput(nextNode.getPath());
-                        nextNode.setInput(currentNode.getPath());
-                        nodes.set(currentId - 1, currentNode);
-                        nodes.set(nextId - 1, nextNode);
-                    } catch (NumberFormatException | IndexOutOfBoundsException ignored) {
-                        // Ignored
+    /**
+     * A helper method used to find the start of the first line at or after a position.
+     * @param save the mapped file.
+     * @param position the position to search from, which must be after the start of the file.
+     * @param to the position to stop searching at.
+     * @return the position of the start of the line, or to if no line starts before it.
+     */
+    private static long nextLine(MappedSave save, long position, long to) {
+        for (long p = position; p < to; p++) {
+            byte previous = save.get(p - 1);
+            if (previous == '\n' || (previous == '\r' && save.get(p) != '\n')) {
+                return p;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * A helper method used to find the first line marking the end of a section (i.e. starting
+     * with 5 underscores) in part of a mapped file.
+     * @param save the mapped file.
+     * @param from the position of the start of the first line to search.
+     * @param to the position to stop searching at.
+     * @return the position of the start of the line, or -1 if there is none.
+     */
+    private static long findSectionEnd(MappedSave save, long from, long to) {
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, to - from)];
+        long lineStart = from;
+        int matched = 0; // Underscores at the start of the current line, or -1 if it cant match
+        for (long offset = from; offset < to; offset += buffer.length) {
+            int read = (int) Math.min(buffer.length, to - offset);
+            save.get(offset, buffer, read);
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                if (b == '\n' || b == '\r') {
+                    lineStart = offset + i + 1;
+                    matched = 0;
+                } else if (matched >= 0) {
+                    matched = b == '_' ? matched + 1 : -1;
+                    if (matched == SaveLines.SECTION_END.length()) {
+                        return lineStart;
                     }
                 }
             }
         }
-        return nodes;
+        return -1;
+    }
+
+    /**
+     * A helper method used to run tasks on a pool and wait for all of them to finish.
+     * @param pool the pool to run the tasks on.
+     * @param tasks the tasks to run.
+     * @param <T> the type of the results of the tasks.
+     * @return the results of the tasks, in the same order as the tasks.
+     * @throws FileFormatException if any of the tasks found the file to be incorrectly formatted.
+     */
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks)
+            throws FileFormatException {
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof FileFormatException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
     }
 
     /**
-     * Provides an access point to lead and parse the grid map text file.
+     * Provides an access point to lead and parse the grid map text file. Each call uses its own
+     * GameLoader, so this method can be called from any number of threads at once.
      * @param readerGiven the reader to read from.
      * @return the GameGrid loaded from the reader file.
      * @throws IOException if there is am error reading from the reader.
@@ -316,78 +1036,259 @@ public class GameLoader {
      */
     public static GameGrid load(Reader readerGiven)
             throws IOException, FileFormatException {
+        return new GameLoader().read(readerGiven);
+    }
 
-        // Null reader
-        if (readerGiven == null) {
-            throw new NullPointerException();
-        }
-
-        // Buffered readers suit this purpose since we can readLine()
-        BufferedReader reader = new BufferedReader(readerGiven);
+    /**
+     * Provides an access point to load a grid map text file through a memory mapping. Each call
+     * uses its own GameLoader, so this method can be called from any number of threads at once.
+     * @param file the path of the file to load.
+     * @return the GameGrid loaded from the file.
+     * @throws IOException if there is an error opening or mapping the file.
+     * @throws FileFormatException if the file is not in the correct format, or contains a
+     * character that is not ASCII.
+     * @see #read(java.nio.file.Path)
+     */
+    public static GameGrid load(java.nio.file.Path file) throws IOException, FileFormatException {
+        return new GameLoader().read(file);
+    }
 
-        List<String> lines = new ArrayList<>();
+    /**
+     * Provides an access point to load a grid map text file lazily through a memory mapping. Each
+     * call uses its own GameLoader, so this method can be called from any number of threads at
+     * once.
+     * @param file the path of the file to load.
+     * @return the GameGrid loaded from the file, whose rows are populated when first queried.
+     * @throws IOException if there is an error opening or mapping the file.
+     * @throws FileFormatException if the file is not in the correct format, or contains a
+     * character that is not ASCII.
+     * @see #readLazily(java.nio.file.Path)
+     */
+    public static GameGrid loadLazily(java.nio.file.Path file)
+            throws IOException, FileFormatException {
+        return new GameLoader().readLazily(file);
+    }
 
-        // Read all lines and save to a list
-        try {
-            String line = reader.readLine();
-            while (line != null) {
-                lines.add(line);
-                line = reader.readLine();
-            }
-        } catch (Error e) {
-            // Error reading leads to IOException
-            throw new IOException();
+    /**
+     * The rows of a lazily loaded file, which creates the components of each row of the GameGrid
+     * from the mapped file when it is first queried. Every row has already been checked when the
+     * file was loaded, and the link lines have been resolved into the final input and output of
+     * every node by its id, exactly as applyLink() would have left them, so creating a row cannot
+     * fail and the links made do not depend on the order rows are created in.
+     */
+    private static class LazyRows implements RowSource {
+        /** The mapped file. */
+        private final MappedSave save;
+        /** The position of each row in the file. */
+        private long[] rowOffset;
+        /** The number of characters of each row, not including its line terminator. */
+        private int[] rowLength;
+        /** The number of rows in the file. */
+        private int rowCount;
+        /** The number of nodes before each row, followed by the total number of nodes. */
+        private int[] firstNode;
+        /** The number of producers before each row, followed by the total. */
+        private int[] firstProducer;
+        /** The number of receivers before each row, followed by the total. */
+        private int[] firstReceiver;
+        /** The number of nodes in the file. */
+        private int nodeCount;
+        /** The encoding of every node, indexed by id - 1. Only used while loading. */
+        private byte[] types;
+        /** The id of the input of every node, indexed by id, or 0 if it has no input. */
+        private int[] input;
+        /** The id of the output of every node, indexed by id, or 0 if it has no output. */
+        private int[] output;
+        /** The links that are not matched by a link back from the node they are to, each packed
+         * as the id of the node linked to followed by the id of the node linked from, sorted. */
+        private long[] oneWay;
+        /** The loader that creates the components of rows, holding the keys and every node
+         * created so far. */
+        private GameLoader worker;
+
+        /**
+         * Constructs the rows of a lazily loaded file, to be indexed as the file is loaded.
+         * @param save the mapped file.
+         */
+        private LazyRows(MappedSave save) {
+            this.save = save;
         }
 
-        // List of lines then split according to section
-        List<List<String>> section = GameLoader.splitSections(lines);
-
-        // Range is the first letter of the file
-        range = Integer.parseInt(section.get(0).get(0));
-
-        gameGrid = new GameGrid(range);
-
-        // Initialises all Items into a list
-        List<Item> producerItems = GameLoader.getItems(section.get(2));
-        List<Item> receiverItems = GameLoader.getItems(section.get(3));
+        /**
+         * Resolves the fields of a link line in the same way as applyLink(), by the ids of the
+         * nodes rather than the nodes themselves.
+         * @param count the number of fields on the line, ignoring trailing empty fields.
+         * @param first the first field (the id of the node), or INVALID.
+         * @param second the second field, or INVALID.
+         * @param third the third field, or INVALID.
+         * @throws FileFormatException if the linking information is invalid, including when a
+         * producer is given an input or a receiver is given an output, as applyLink() would.
+         */
+        private void link(int count, int first, int second, int third)
+                throws FileFormatException {
+            int current = count == 0 ? 0 : valid(first);
+            if (current == 0) {
+                throw new FileFormatException();
+            }
 
-        // Gets all nodes into list
-        List<Transport> nodes = GameLoader.getNodes(section.get(4), producerItems, receiverItems);
+            switch (types[current - 1]) {
+                case 'p' -> {
+                    int next = count == 2 ? valid(second) : 0;
+                    if (next == 0) {
+                        throw new FileFormatException();
+                    }
+                    setOutput(current, next);
+                    setInput(next, current);
+                }
+                case 'r' -> {
+                    int previous = count == 2 ? valid(second) : 0;
+                    if (previous == 0) {
+                        throw new FileFormatException();
+                    }
+                    setInput(current, previous);
+                    setOutput(previous, current);
+                }
+                default -> {
+                    int previous = count > 1 ? valid(second) : 0;
+                    if (previous != 0) {
+                        setInput(current, previous);
+                        setOutput(previous, current);
+                    }
+                    int next = count > 2 ? valid(third) : 0;
+                    if (next != 0) {
+                        setOutput(current, next);
+                        setInput(next, current);
+                    }
+                }
+            }
+        }
 
-        // Updates nodes with linking information
-        nodes = GameLoader.linkNodes(section.get(5), nodes);
+        /**
+         * A helper method used to check a link field.
+         * @param id the field.
+         * @return the field if it is the id of a node, or 0 otherwise.
+         */
+        private int valid(int id) {
+            return id >= 1 && id <= nodeCount ? id : 0;
+        }
 
-        int producerCount = 0;
-        int receiverCount = 0;
+        /**
+         * A helper method used to set the input of a node, which cannot be a producer.
+         * @param id the id of the node.
+         * @param previous the id of its input.
+         * @throws FileFormatException if the node is a producer.
+         */
+        private void setInput(int id, int previous) throws FileFormatException {
+            if (types[id - 1] == 'p') {
+                throw new FileFormatException();
+            }
+            input[id] = previous;
+        }
 
-        // Sends each node to GameGrid
-        for (Transport node : nodes) {
-            if (node instanceof Producer) {
-                // Counting producers to confirm it matches section 2
-                producerCount++;
+        /**
+         * A helper method used to set the output of a node, which cannot be a receiver.
+         * @param id the id of the node.
+         * @param next the id of its output.
+         * @throws FileFormatException if the node is a receiver.
+         */
+        private void setOutput(int id, int next) throws FileFormatException {
+            if (types[id - 1] == 'r') {
+                throw new FileFormatException();
             }
+            output[id] = next;
+        }
 
-            if (node instanceof Receiver) {
-                // Counting receivers to confirm it matches section 3
-                receiverCount++;
+        /**
+         * Records the links that are not matched by a link back, once every link line has been
+         * resolved, and sets the worker used to populate rows.
+         * @param worker the loader to create the components of rows with.
+         */
+        private void finishLinks(GameLoader worker) {
+            long[] found = new long[16];
+            int count = 0;
+            for (int id = 1; id <= nodeCount; id++) {
+                for (int pass = 0; pass < 2; pass++) {
+                    int to = pass == 0 ? input[id] : output[id];
+                    int back = pass == 0 ? output[to] : input[to];
+                    if (to == 0 || back == id) {
+                        continue;
+                    }
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = (long) to << 32 | id;
+                }
             }
+            oneWay = Arrays.copyOf(found, count);
+            Arrays.sort(oneWay);
+            types = null;
 
-            gameGrid.setCoordinate(position.get(node), node);
+            this.worker = worker;
+            worker.nodes = new Transport[nodeCount];
         }
 
-        // Number of producers in this GameGrid
-        int numberProducers = Integer.parseInt(section.get(1).get(0));
+        @Override
+        public void populate(GameGrid grid, int r) {
+            int row = SaveRows.toRow(worker.range, r);
+            if (row >= rowCount) {
+                return;
+            }
+            try {
+                byte[] bytes = new byte[rowLength[row]];
+                save.get(rowOffset[row], bytes, bytes.length);
+                worker.lines.clear();
+                worker.lines.append(bytes, 0, bytes.length);
+                worker.gameGrid = grid;
+                worker.row = row;
+                worker.producerCount = firstProducer[row];
+                worker.receiverCount = firstReceiver[row];
+                worker.nodeCount = firstNode[row];
+                worker.readRow();
+            } catch (FileFormatException e) {
+                throw new IllegalStateException("Save file changed while it was loaded lazily", e);
+            } finally {
+                worker.gameGrid = null;
+            }
 
-        // Number of receivers in this GameGrid
-        int numberReceivers = Integer.parseInt(section.get(1).get(1));
+            // Links each new node both ways with every node already created
+            Transport[] nodes = worker.nodes;
+            for (int id = firstNode[row] + 1; id <= firstNode[row + 1]; id++) {
+                Transport node = nodes[id - 1];
+                Transport previous = input[id] == 0 ? null : nodes[input[id] - 1];
+                if (previous != null) {
+                    node.setInput(previous.getPath());
+                    if (output[input[id]] == id) {
+                        previous.setOutput(node.getPath());
+                    }
+                }
+                Transport next = output[id] == 0 ? null : nodes[output[id] - 1];
+                if (next != null) {
+                    node.setOutput(next.getPath());
+                    if (input[output[id]] == id) {
+                        next.setInput(node.getPath());
+                    }
+                }
+            }
 
-        if (producerCount != numberProducers || receiverCount != numberReceivers
-                            || section.get(2).size() != producerCount
-                            || section.get(3).size() != receiverCount) {
-            throw new FileFormatException();
+            // Then the one way links to the new nodes from nodes already created
+            long first = (long) (firstNode[row] + 1) << 32;
+            int start = Arrays.binarySearch(oneWay, first);
+            for (int i = start < 0 ? -start - 1 : start; i < oneWay.length; i++) {
+                int to = (int) (oneWay[i] >>> 32);
+                int from = (int) oneWay[i];
+                if (to > firstNode[row + 1]) {
+                    break;
+                }
+                Transport node = nodes[from - 1];
+                if (node != null) {
+                    if (output[from] == to) {
+                        node.setOutput(nodes[to - 1].getPath());
+                    }
+                    if (input[from] == to) {
+                        node.setInput(nodes[to - 1].getPath());
+                    }
+                }
+            }
         }
-
-        return gameGrid;
     }
 }
-
@@ -0,0 +1,45 @@
+package lms.io;
+
+import lms.grid.GameGrid;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Class responsible for writing a GameGrid in the compact binary save format, which can be read
+ * back by BinaryGameLoader. Every cell, node id, key and link of the grid is saved along with the
+ * Item held by every node and the counter of every Producer, so the grid that is loaded back is
+ * the same as the grid that was saved.
+ * @see BinaryFormat
+ * @see SaveImage
+ */
+public class GameSaver {
+
+    /**
+     * Writes the given grid to a stream in the binary save format, with a tick count of 0. The
+     * stream is flushed but not closed.
+     * @param grid the GameGrid to save.
+     * @param out the stream to write to.
+     * @throws IOException if there is an error writing to the stream.
+     * @throws IllegalArgumentException if the grid contains a component which cannot be saved, or
+     * a node linked to a node which is not on the grid.
+     */
+    public static void save(GameGrid grid, OutputStream out)
+            throws IOException, IllegalArgumentException {
+        SaveImage.capture(grid).write(out);
+    }
+
+    /**
+     * Writes the given grid to a file in the binary save format, with a tick count of 0. The file
+     * is replaced atomically if it exists.
+     * @param grid the GameGrid to save.
+     * @param file the path of the file to write.
+     * @throws IOException if there is an error writing the file.
+     * @throws IllegalArgumentException if the grid contains a component which cannot be saved, or
+     * a node linked to a node which is not on the grid.
+     */
+    public static void save(GameGrid grid, java.nio.file.Path file)
+            throws IOException, IllegalArgumentException {
+        SaveImage.capture(grid).write(file);
+    }
+}
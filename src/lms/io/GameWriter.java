@@ -0,0 +1,285 @@
+package lms.io;
+
+import lms.grid.GameGrid;
+import lms.logistics.Path;
+import lms.logistics.Transport;
+import lms.logistics.container.Container;
+import lms.logistics.container.Producer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class responsible for writing a GameGrid to the six section text save format read by
+ * GameLoader, the inverse of loading a save file.
+ * <p>
+ * The file is streamed to the Writer through a single reused character buffer, without building a
+ * String for each row or line. As the text format has no room for ids, the nodes are numbered
+ * from 1 in row order when they are written, which is the order GameLoader numbers them in when
+ * the file is loaded back. Grids whose nodes are already numbered this way, such as any grid
+ * loaded by GameLoader, are written without looking up the new id of every node.
+ * <p>
+ * Every node writes its own links, so a grid whose links are symmetric (each node's output has
+ * that node as its input) is loaded back exactly as it was written.
+ * <p>
+ * Cells that have not been set, and components other than walls, empty cells, belts, producers
+ * and receivers, cannot be written to the text format.
+ */
+public class GameWriter {
+    /** Variable used to denote the end of a section in the text file. */
+    private static final String sectionEnd = "_____";
+
+    /** The size of the buffer that characters are written through. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** The writer the file is being written to. */
+    private final Writer out;
+
+    /** Buffer of characters waiting to be written. */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /** The number of characters in the buffer. */
+    private int length;
+
+    /** Every transport node on the grid, in row order. */
+    private Transport[] nodes;
+
+    /** The id every node is written with, or null until a node is found out of order. */
+    private Map<Transport, Integer> ids;
+
+    /**
+     * Constructs a new GameWriter for a single grid.
+     * @param out the writer to write to.
+     */
+    private GameWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the given grid to a Writer in the text save format. The writer is flushed but not
+     * closed.
+     * @param grid the GameGrid to write.
+     * @param out the writer to write to.
+     * @throws IOException if there is an error writing to the writer.
+     * @throws IllegalArgumentException if the grid contains a cell which cannot be written, or a
+     * node linked to a node which is not on the grid.
+     */
+    public static void write(GameGrid grid, Writer out)
+            throws IOException, IllegalArgumentException {
+        new GameWriter(out).writeGrid(grid);
+    }
+
+    /**
+     * Writes the given grid to a file in the text save format, replacing the file if it exists.
+     * @param grid the GameGrid to write.
+     * @param file the path of the file to write.
+     * @throws IOException if there is an error writing the file.
+     * @throws IllegalArgumentException if the grid contains a cell which cannot be written, or a
+     * node linked to a node which is not on the grid.
+     */
+    public static void write(GameGrid grid, java.nio.file.Path file)
+            throws IOException, IllegalArgumentException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            write(grid, out);
+        }
+    }
+
+    /**
+     * A helper method used to write every section of the file in order.
+     * @param grid the GameGrid to write.
+     * @throws IOException if there is an error writing to the writer.
+     * @throws IllegalArgumentException if the grid cannot be written.
+     */
+    private void writeGrid(GameGrid grid) throws IOException, IllegalArgumentException {
+        int range = grid.getRange();
+        List<Transport> found = new ArrayList<>();
+        List<Container> producers = new ArrayList<>();
+        List<Container> receivers = new ArrayList<>();
+        grid.forEachTransport(node -> {
+            found.add(node);
+            if (node instanceof Container container) {
+                (node instanceof Producer ? producers : receivers).add(container);
+            }
+        });
+        nodes = found.toArray(new Transport[0]);
+
+        // Section 1: range, section 2: producer and receiver counts
+        append(range).endLine().endSection();
+        append(producers.size()).endLine().append(receivers.size()).endLine().endSection();
+
+        // Sections 3 and 4: the key of every producer and receiver, in row order
+        for (Container producer : producers) {
+            append(producer.getKey().toString()).endLine();
+        }
+        endSection();
+        for (Container receiver : receivers) {
+            append(receiver.getKey().toString()).endLine();
+        }
+        endSection();
+
+        // Section 5: the hexagon, the IOException is carried out of the visitor unchecked
+        try {
+            grid.forEachCell((q, r, component) -> {
+                int row = SaveRows.toRow(range, r);
+                int column = SaveRows.toColumn(range, q, r);
+                char letter = CellType.of(component).getLetter();
+                if (letter == 0) {
+                    throw new IllegalArgumentException("Cell " + q + "," + r + " is not set");
+                }
+                try {
+                    if (column == 0) {
+                        for (int i = SaveRows.indent(range, row); i > 0; i--) {
+                            append(' ');
+                        }
+                    } else {
+                        append(' ');
+                    }
+                    append(letter);
+                    if (column == SaveRows.width(range, row) - 1) {
+                        endLine();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        endSection();
+
+        // Section 6: the links of every node, in the form GameLoader expects for its type
+        for (int i = 0; i < nodes.length; i++) {
+            Transport node = nodes[i];
+            int id = i + 1;
+            int input = idOf(node.getInput());
+            int output = idOf(node.getOutput());
+            String type = node.getEncoding();
+            if (type.equals("p")) {
+                if (output != 0) {
+                    append(id).append('-').append(output).endLine();
+                }
+            } else if (type.equals("r")) {
+                if (input != 0) {
+                    append(id).append('-').append(input).endLine();
+                }
+            } else if (input != 0 || output != 0) {
+                // A missing input is left empty, which GameLoader ignores
+                append(id).append('-');
+                if (input != 0) {
+                    append(input);
+                }
+                if (output != 0) {
+                    append(',').append(output);
+                }
+                endLine();
+            }
+        }
+
+        out.write(buffer, 0, length);
+        length = 0;
+        out.flush();
+    }
+
+    /**
+     * A helper method used to get the id a linked node is written with, which is its position in
+     * row order. A node's own id is used when it matches its position, otherwise the position is
+     * looked up in a map of every node, built the first time it is needed.
+     * @param path the Path to a node, or null.
+     * @return the id of the node, or 0 if the Path is null.
+     * @throws IllegalArgumentException if the node is not on the grid.
+     */
+    private int idOf(Path path) throws IllegalArgumentException {
+        if (path == null) {
+            return 0;
+        }
+        Transport node = path.getNode();
+        int own = node.getId();
+        if (own >= 1 && own <= nodes.length && nodes[own - 1] == node) {
+            return own;
+        }
+
+        if (ids == null) {
+            ids = new IdentityHashMap<>();
+            for (int i = 0; i < nodes.length; i++) {
+                ids.put(nodes[i], i + 1);
+            }
+        }
+        Integer id = ids.get(node);
+        if (id == null) {
+            throw new IllegalArgumentException("Linked to a node that is not on the grid");
+        }
+        return id;
+    }
+
+    /**
+     * A helper method used to append a character to the buffer, writing the buffer out first if
+     * it is full.
+     * @param c the character to append.
+     * @return this GameWriter.
+     * @throws IOException if there is an error writing to the writer.
+     */
+    private GameWriter append(char c) throws IOException {
+        if (length == buffer.length) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+        buffer[length++] = c;
+        return this;
+    }
+
+    /**
+     * A helper method used to append the characters of a String to the buffer.
+     * @param text the String to append.
+     * @return this GameWriter.
+     * @throws IOException if there is an error writing to the writer.
+     */
+    private GameWriter append(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * A helper method used to append the decimal digits of a non-negative number to the buffer,
+     * without creating a String.
+     * @param value the number to append.
+     * @return this GameWriter.
+     * @throws IOException if there is an error writing to the writer.
+     */
+    private GameWriter append(int value) throws IOException {
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            append((char) ('0' + value / divisor % 10));
+        }
+        return this;
+    }
+
+    /**
+     * A helper method used to end the current line.
+     * @return this GameWriter.
+     * @throws IOException if there is an error writing to the writer.
+     */
+    private GameWriter endLine() throws IOException {
+        return append('\n');
+    }
+
+    /**
+     * A helper method used to end the current section.
+     * @return this GameWriter.
+     * @throws IOException if there is an error writing to the writer.
+     */
+    private GameWriter endSection() throws IOException {
+        return append(sectionEnd).endLine();
+    }
+}
@@ -0,0 +1,77 @@
+package lms.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only memory mapping of a whole save file, which may be larger than a single
+ * MappedByteBuffer can address. The file is mapped as a series of segments, and bytes are read
+ * by their position in the file regardless of which segment holds them.
+ */
+class MappedSave {
+    /** The number of bits of a position that index into a segment. */
+    private static final int SEGMENT_BITS = 30;
+
+    /** The number of bytes mapped by each segment, other than the last. */
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+
+    /** The mapped segments of the file, in order. */
+    private final MappedByteBuffer[] segments;
+
+    /** The size of the file in bytes. */
+    private final long size;
+
+    /**
+     * Maps the whole of the file open in the given channel.
+     * @param channel the channel to map, which must be open for reading.
+     * @throws IOException if the file cannot be mapped.
+     */
+    MappedSave(FileChannel channel) throws IOException {
+        size = channel.size();
+        segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+        for (int i = 0; i < segments.length; i++) {
+            long position = (long) i << SEGMENT_BITS;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(SEGMENT_SIZE, size - position));
+        }
+    }
+
+    /**
+     * Accessor method to get the size of the mapped file.
+     * @return the size of the file in bytes.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Accessor method to get a single byte of the file.
+     * @param position the position of the byte.
+     * @return the byte at the given position.
+     * @requires 0 &lt;= position &lt; size()
+     */
+    byte get(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)]
+                .get((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    /**
+     * Copies consecutive bytes of the file into an array, which may span segments.
+     * @param position the position of the first byte to copy.
+     * @param destination the array to copy the bytes into, starting at index 0.
+     * @param length the number of bytes to copy.
+     * @requires 0 &lt;= position &amp;&amp; position + length &lt;= size()
+     */
+    void get(long position, byte[] destination, int length) {
+        int copied = 0;
+        while (copied < length) {
+            MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_BITS)];
+            int offset = (int) (position & (SEGMENT_SIZE - 1));
+            int count = Math.min(length - copied, segment.limit() - offset);
+            segment.get(offset, destination, copied, count);
+            copied += count;
+            position += count;
+        }
+    }
+}
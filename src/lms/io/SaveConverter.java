@@ -0,0 +1,50 @@
+package lms.io;
+
+import lms.exceptions.FileFormatException;
+import lms.grid.GameGrid;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Command line application which converts a text save file into the compact binary save format.
+ */
+public class SaveConverter {
+
+    /**
+     * Main method for the save converter.
+     * <p>
+     * Usage: text_save binary_save [parallelism]
+     *
+     * @param args String array of command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: text_save binary_save [parallelism]");
+            System.err.println("Example: saves/grid1.txt saves/grid1.bin");
+            System.exit(1);
+        }
+
+        GameGrid gameGrid;
+        try {
+            GameLoader loader = new GameLoader();
+            if (args.length > 2) {
+                loader.setParallelism(Integer.parseInt(args[2]));
+            }
+            gameGrid = loader.read(Path.of(args[0]));
+        } catch (IOException | FileFormatException e) {
+            System.err.println("File was incorrectly formatted");
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+
+        try {
+            GameSaver.save(gameGrid, Path.of(args[1]));
+        } catch (IOException e) {
+            System.err.println("Binary save could not be written");
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package lms.io;
+
+/**
+ * A single problem found in a text save file by SaveValidator, with the position it was found
+ * at. Errors are problems that stop the file from being loaded, while warnings are problems that
+ * GameLoader ignores, such as a belt linked to a node that does not exist.
+ */
+public final class SaveDiagnostic {
+    /** The line the problem was found on, counting from 1. */
+    private final int line;
+    /** The column the problem was found at, counting from 1, or 0 for the whole line. */
+    private final int column;
+    /** A description of the problem. */
+    private final String message;
+    /** Whether the problem is only a warning, which does not stop the file from being loaded. */
+    private final boolean warning;
+
+    /**
+     * Constructs a new SaveDiagnostic.
+     * @param line the line the problem was found on, counting from 1.
+     * @param column the column the problem was found at, counting from 1, or 0 for the whole
+     * line.
+     * @param message a description of the problem.
+     * @param warning true if the problem does not stop the file from being loaded.
+     */
+    SaveDiagnostic(int line, int column, String message, boolean warning) {
+        this.line = line;
+        this.column = column;
+        this.message = message;
+        this.warning = warning;
+    }
+
+    /**
+     * Accessor method to get the line the problem was found on.
+     * @return the line number, counting from 1.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Accessor method to get the column the problem was found at.
+     * @return the column, counting from 1, or 0 if the problem is with the whole line.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Accessor method to get the description of the problem.
+     * @return the message of this diagnostic.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Checks whether the problem is only a warning.
+     * @return true if the problem does not stop the file from being loaded, false if it does.
+     */
+    public boolean isWarning() {
+        return warning;
+    }
+
+    /**
+     * Returns the position and description of the problem, in the form
+     * "line:column: error: message".
+     * @return String representation of this diagnostic.
+     */
+    @Override
+    public String toString() {
+        return line + ":" + column + ": " + (warning ? "warning" : "error") + ": " + message;
+    }
+}
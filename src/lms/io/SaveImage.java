@@ -0,0 +1,277 @@
+package lms.io;
+
+import lms.grid.GameGrid;
+import lms.logistics.Item;
+import lms.logistics.Path;
+import lms.logistics.Transport;
+import lms.logistics.container.Container;
+import lms.logistics.container.Producer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory copy of everything written to a binary save for a GameGrid: its layout (cells,
+ * node ids, keys and links) and the state of its simulation (the tick count, the Item held by
+ * every node and the counter of every Producer).
+ * <p>
+ * The layout is captured once, after which the state can be captured again any number of times
+ * with withState() while the layout arrays are shared. Capturing the state only copies references
+ * and ints, so it is cheap enough to be done between ticks, and the resulting image can then be
+ * written on another thread while the simulation carries on.
+ * @see BinaryFormat
+ */
+public final class SaveImage {
+    /** The size of the buffer used when writing to a stream. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** The range of the grid. */
+    private final int range;
+    /** The packed type of every cell. */
+    private final byte[] types;
+    /** Every transport node, in cell order. */
+    private final Transport[] nodes;
+    /** The id of every node. */
+    private final int[] ids;
+    /** The index of the key of every node in the item dictionary, or -1 for belts. */
+    private final int[] keys;
+    /** The position of the input of every node, counting from 1, or 0 for no input. */
+    private final int[] inputs;
+    /** The position of the output of every node, counting from 1, or 0 for no output. */
+    private final int[] outputs;
+    /** The names of the keys of the nodes, in the order of the item dictionary. */
+    private final List<String> items;
+
+    /** The number of ticks processed when the state was captured. */
+    private final long tickCount;
+    /** The Item held by every node when the state was captured, or null. */
+    private final Item[] inventories;
+    /** The counter of every node when the state was captured, 0 for nodes other than producers. */
+    private final int[] counters;
+
+    /**
+     * Constructs a new SaveImage sharing the layout of another image, and captures the current
+     * state of its nodes.
+     * @param layout the image to share the layout of.
+     * @param tickCount the number of ticks processed.
+     */
+    private SaveImage(SaveImage layout, long tickCount) {
+        this.range = layout.range;
+        this.types = layout.types;
+        this.nodes = layout.nodes;
+        this.ids = layout.ids;
+        this.keys = layout.keys;
+        this.inputs = layout.inputs;
+        this.outputs = layout.outputs;
+        this.items = layout.items;
+
+        this.tickCount = tickCount;
+        this.inventories = new Item[nodes.length];
+        this.counters = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            inventories[i] = nodes[i].getStoredInventory();
+            if (nodes[i] instanceof Producer producer) {
+                counters[i] = producer.getCounter();
+            }
+        }
+    }
+
+    /**
+     * Constructs a new SaveImage by capturing the layout of the given grid, with empty state.
+     * @param grid the GameGrid to capture.
+     * @throws IllegalArgumentException if the grid contains a component which cannot be saved, or
+     * a node linked to a node which is not on the grid.
+     */
+    private SaveImage(GameGrid grid) throws IllegalArgumentException {
+        int cellCount = (int) BinaryFormat.cellCount(grid.getRange());
+        byte[] packed = new byte[(cellCount + 1) / 2];
+        List<Transport> found = new ArrayList<>();
+
+        // Types are packed two to a byte, the first cell in the low bits
+        int[] index = {0};
+        grid.forEachCell((q, r, component) -> {
+            byte type = CellType.of(component).getCode();
+            packed[index[0] >> 1] |= (byte) (type << ((index[0] & 1) * 4));
+            if (component instanceof Transport transport) {
+                found.add(transport);
+            }
+            index[0]++;
+        });
+
+        Map<Transport, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < found.size(); i++) {
+            positions.put(found.get(i), i + 1);
+        }
+
+        this.range = grid.getRange();
+        this.types = packed;
+        this.nodes = found.toArray(new Transport[0]);
+        this.ids = new int[nodes.length];
+        this.keys = new int[nodes.length];
+        this.inputs = new int[nodes.length];
+        this.outputs = new int[nodes.length];
+        this.items = new ArrayList<>();
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            Transport node = nodes[i];
+            ids[i] = node.getId();
+            keys[i] = node instanceof Container container
+                    ? indexOf(container.getKey().toString(), dictionary, items)
+                    : -1;
+            inputs[i] = positionOf(node.getInput(), positions);
+            outputs[i] = positionOf(node.getOutput(), positions);
+        }
+
+        this.tickCount = 0;
+        this.inventories = new Item[nodes.length];
+        this.counters = new int[nodes.length];
+    }
+
+    /**
+     * Captures the layout and current state of the given grid, with a tick count of 0.
+     * @param grid the GameGrid to capture.
+     * @return a new SaveImage of the grid.
+     * @throws IllegalArgumentException if the grid contains a component which cannot be saved, or
+     * a node linked to a node which is not on the grid.
+     */
+    public static SaveImage capture(GameGrid grid) throws IllegalArgumentException {
+        return new SaveImage(grid).withState(0);
+    }
+
+    /**
+     * Captures the current state of the nodes this image was captured from, sharing the layout of
+     * this image. The layout must not have changed since this image was captured.
+     * @param tickCount the number of ticks processed.
+     * @return a new SaveImage with the same layout as this one and the current state.
+     */
+    public SaveImage withState(long tickCount) {
+        return new SaveImage(this, tickCount);
+    }
+
+    /**
+     * Accessor method to get the number of ticks processed when the state was captured.
+     * @return the tick count of this image.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Writes this image to a stream in the binary save format. The stream is flushed but not
+     * closed.
+     * @param out the stream to write to.
+     * @throws IOException if there is an error writing to the stream.
+     */
+    public void write(OutputStream out) throws IOException {
+        // Items held by nodes are usually their keys, anything else is added to the dictionary
+        List<String> names = new ArrayList<>(items);
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            dictionary.put(names.get(i), i);
+        }
+        int[] held = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            held[i] = inventories[i] == null
+                    ? -1
+                    : indexOf(inventories[i].toString(), dictionary, names);
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        data.writeInt(BinaryFormat.MAGIC);
+        data.writeInt(BinaryFormat.VERSION);
+        data.writeInt(range);
+
+        data.writeInt(names.size());
+        for (String name : names) {
+            data.writeUTF(name);
+        }
+
+        data.writeInt((int) BinaryFormat.cellCount(range));
+        data.write(types);
+
+        data.writeInt(nodes.length);
+        data.write(BinaryFormat.toBytes(ids));
+        data.write(BinaryFormat.toBytes(keys));
+        data.write(BinaryFormat.toBytes(inputs));
+        data.write(BinaryFormat.toBytes(outputs));
+
+        data.writeLong(tickCount);
+        data.write(BinaryFormat.toBytes(held));
+        data.write(BinaryFormat.toBytes(counters));
+        data.flush();
+    }
+
+    /**
+     * Writes this image to a file in the binary save format. The image is written to a temporary
+     * file next to the given file, which is then moved over it, so the file always holds either
+     * the previous contents or a complete image, even if writing fails part way.
+     * @param file the path of the file to write.
+     * @throws IOException if there is an error writing the file.
+     */
+    public void write(java.nio.file.Path file) throws IOException {
+        java.nio.file.Path absolute = file.toAbsolutePath();
+        java.nio.file.Path temporary = Files.createTempFile(absolute.getParent(),
+                absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                write(out);
+            }
+            try {
+                Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * A helper method used to get the position of the node at the end of a Path.
+     * @param path the Path to a node, or null.
+     * @param positions the position of every node on the grid, counting from 1.
+     * @return the position of the node, or 0 if the Path is null.
+     * @throws IllegalArgumentException if the node is not on the grid.
+     */
+    private static int positionOf(Path path, Map<Transport, Integer> positions)
+            throws IllegalArgumentException {
+        if (path == null) {
+            return 0;
+        }
+        Integer position = positions.get(path.getNode());
+        if (position == null) {
+            throw new IllegalArgumentException("Linked to a node that is not on the grid");
+        }
+        return position;
+    }
+
+    /**
+     * A helper method used to get the index of an item in a dictionary, adding it if it is not
+     * already present.
+     * @param name the name of the item.
+     * @param dictionary the index of every name in the dictionary.
+     * @param names the names in the dictionary, in order.
+     * @return the index of the item in the dictionary.
+     */
+    private static int indexOf(String name, Map<String, Integer> dictionary, List<String> names) {
+        Integer index = dictionary.get(name);
+        if (index == null) {
+            index = names.size();
+            dictionary.put(name, index);
+            names.add(name);
+        }
+        return index;
+    }
+}
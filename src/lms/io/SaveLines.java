@@ -0,0 +1,261 @@
+package lms.io;
+
+import lms.exceptions.FileFormatException;
+
+import java.util.Arrays;
+
+/**
+ * The line currently being read from a text save file, shared by GameLoader and SaveValidator so
+ * that both split a file into lines, find the ends of sections and parse numbers and link fields
+ * in exactly the same way.
+ * <p>
+ * Lines end at "\n", "\r" or "\r\n", as with BufferedReader.readLine(), and the characters of a
+ * file can be given in blocks of any size, even if a block ends in the middle of a line or between
+ * the "\r" and "\n" of a line terminator.
+ */
+final class SaveLines {
+    /** Variable used to denote the end of a section in the text file. */
+    static final String SECTION_END = "_____";
+    /** The number of sections in a valid file. */
+    static final int SECTIONS = 6;
+    /** Value of a number or link field which is not valid. */
+    static final int INVALID = -1;
+
+    /** The characters of the line currently being read. */
+    private char[] line = new char[256];
+    /** The number of characters in the line currently being read. */
+    private int length;
+    /** Whether the last line read ended with "\r", so a "\n" straight after it is skipped. */
+    private boolean afterCarriageReturn;
+
+    /**
+     * Constructs a new, empty line.
+     */
+    SaveLines() {
+    }
+
+    /**
+     * Accessor method to get the characters of the current line.
+     * @return the array holding the line, whose first length() characters are the line.
+     */
+    char[] chars() {
+        return line;
+    }
+
+    /**
+     * Accessor method to get the number of characters in the current line.
+     * @return the length of the line, not including its line terminator.
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Accessor method to check how the last line read was terminated.
+     * @return true if the last line read ended with "\r", false otherwise.
+     */
+    boolean afterCarriageReturn() {
+        return afterCarriageReturn;
+    }
+
+    /**
+     * Empties the current line, once it has been handled.
+     */
+    void clear() {
+        length = 0;
+    }
+
+    /**
+     * Empties the current line and forgets how the last line was terminated, before a new file
+     * or a new part of a file is read.
+     */
+    void reset() {
+        length = 0;
+        afterCarriageReturn = false;
+    }
+
+    /**
+     * Reads characters into the current line until the end of the line or of the block.
+     * @param chars the block of characters.
+     * @param from the index of the first character to read (inclusive).
+     * @param to the index of the last character to read (exclusive).
+     * @return the index after the line terminator if the line was read in full, or -1 if the
+     * block ended first.
+     */
+    int accept(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c == '\n' && afterCarriageReturn) {
+                // The second half of "\r\n", whose line has already ended
+                afterCarriageReturn = false;
+                from = i + 1;
+            } else if (c == '\n' || c == '\r') {
+                append(chars, from, i);
+                afterCarriageReturn = c == '\r';
+                return i + 1;
+            } else {
+                afterCarriageReturn = false;
+            }
+        }
+        append(chars, from, to);
+        return -1;
+    }
+
+    /**
+     * Reads ASCII bytes into the current line until the end of the line or of the block.
+     * @param bytes the block of bytes.
+     * @param from the index of the first byte to read (inclusive).
+     * @param to the index of the last byte to read (exclusive).
+     * @return the index after the line terminator if the line was read in full, or -1 if the
+     * block ended first.
+     * @throws FileFormatException if any of the bytes read is not an ASCII character.
+     */
+    int accept(byte[] bytes, int from, int to) throws FileFormatException {
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '\n' && afterCarriageReturn) {
+                afterCarriageReturn = false;
+                from = i + 1;
+            } else if (b == '\n' || b == '\r') {
+                append(bytes, from, i);
+                afterCarriageReturn = b == '\r';
+                return i + 1;
+            } else {
+                afterCarriageReturn = false;
+            }
+        }
+        append(bytes, from, to);
+        return -1;
+    }
+
+    /**
+     * A helper method used to append characters to the current line, growing the line buffer if
+     * it is full.
+     * @param chars the array containing the characters.
+     * @param start the index of the first character to append (inclusive).
+     * @param end the index of the last character to append (exclusive).
+     */
+    private void append(char[] chars, int start, int end) {
+        int needed = length + end - start;
+        if (needed > line.length) {
+            line = Arrays.copyOf(line, Math.max(needed, line.length * 2));
+        }
+        System.arraycopy(chars, start, line, length, end - start);
+        length = needed;
+    }
+
+    /**
+     * Appends ASCII bytes to the current line, growing the line buffer if it is full.
+     * @param bytes the array containing the bytes.
+     * @param start the index of the first byte to append (inclusive).
+     * @param end the index of the last byte to append (exclusive).
+     * @throws FileFormatException if any of the bytes is not an ASCII character.
+     */
+    void append(byte[] bytes, int start, int end) throws FileFormatException {
+        int needed = length + end - start;
+        if (needed > line.length) {
+            line = Arrays.copyOf(line, Math.max(needed, line.length * 2));
+        }
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b < 0) {
+                throw new FileFormatException();
+            }
+            line[length++] = (char) b;
+        }
+    }
+
+    /**
+     * Checks whether the current line marks the end of a section (i.e. it starts with 5
+     * underscores).
+     * @return true if the current line is a section end, false otherwise.
+     */
+    boolean isSectionEnd() {
+        if (length < SECTION_END.length()) {
+            return false;
+        }
+        for (int i = 0; i < SECTION_END.length(); i++) {
+            if (line[i] != SECTION_END.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a non-negative number from part of the current line.
+     * @param start the index of the first character of the number (inclusive).
+     * @param end the index of the last character of the number (exclusive).
+     * @return the number, or INVALID if the characters are not a valid number.
+     */
+    int parseNumber(int start, int end) {
+        // An optional plus sign is accepted, as with Integer.parseInt
+        if (start < end && line[start] == '+') {
+            start++;
+        }
+        if (start == end) {
+            return INVALID;
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char digit = line[i];
+            if (digit < '0' || digit > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (digit - '0');
+            if (value > Integer.MAX_VALUE) {
+                return INVALID;
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the current line as a single non-negative number.
+     * @return the number on the current line, or INVALID if it is not a valid number.
+     */
+    int parseLine() {
+        return parseNumber(0, length);
+    }
+
+    /**
+     * Splits the current line on either "-" or "," into fields, in the same way as String.split
+     * would, without creating any Strings, and parses the first of them as numbers.
+     * @param fields array to hold the first fields, each parsed as by parseNumber().
+     * @param starts array to hold the index at which each of the first fields starts, or null.
+     * @param ends array to hold the index at which each of the first fields ends, or null.
+     * @return the number of fields on the line, ignoring trailing empty fields.
+     */
+    int parseFields(int[] fields, int[] starts, int[] ends) {
+        int field = 0;
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || line[i] == '-' || line[i] == ',') {
+                if (i > start) {
+                    count = field + 1;
+                }
+                if (field < fields.length) {
+                    fields[field] = parseNumber(start, i);
+                    if (starts != null) {
+                        starts[field] = start;
+                        ends[field] = i;
+                    }
+                }
+                field++;
+                start = i + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the current line.
+     * @return a new String holding the characters of the current line.
+     */
+    @Override
+    public String toString() {
+        return new String(line, 0, length);
+    }
+}
@@ -0,0 +1,82 @@
+package lms.io;
+
+import lms.grid.Coordinate;
+
+/**
+ * Helpers describing how the hexagon is laid out in section 5 of a text save file, shared by
+ * GameLoader and GameWriter. Rows are counted from 0 at the top of the hexagon, and columns from
+ * 0 at the first cell of each row, ignoring the spaces between cells.
+ */
+final class SaveRows {
+
+    /**
+     * Private constructor, as this class only holds static helpers.
+     */
+    private SaveRows() {
+    }
+
+    /**
+     * Calculates the number of rows in a hexagon of the given range.
+     * @param range the range of the grid.
+     * @return the number of rows.
+     */
+    static int rows(int range) {
+        return range * 2 + 1;
+    }
+
+    /**
+     * Calculates the number of cells in the given row.
+     * @param range the range of the grid.
+     * @param row the row, counting from 0 at the top.
+     * @return the number of cells in the row.
+     */
+    static int width(int range, int row) {
+        return rows(range) - indent(range, row);
+    }
+
+    /**
+     * Calculates the number of spaces before the first cell of the given row.
+     * @param range the range of the grid.
+     * @param row the row, counting from 0 at the top.
+     * @return the indentation of the row.
+     */
+    static int indent(int range, int row) {
+        return Math.abs(row - range);
+    }
+
+    /**
+     * Converts a [row, column] position in the file into an axial Coordinate.
+     * @param range the range of the grid.
+     * @param row the row, counting from 0 at the top.
+     * @param column the column, counting from 0 at the first cell of the row.
+     * @return Coordinate corresponding to the [row, column] position given.
+     */
+    static Coordinate toCoordinate(int range, int row, int column) {
+        /* Calculates q by using the logic that the column is dependent on row.
+         * Upper half -> column - row, lower half -> column - range. */
+        int q = column - Math.min(range, row);
+        int r = row - range;  // More intuitive than q
+        return new Coordinate(q, r);
+    }
+
+    /**
+     * Converts the r value of an axial Coordinate into its row in the file.
+     * @param range the range of the grid.
+     * @param r the r value of the Coordinate.
+     * @return the row of the Coordinate, counting from 0 at the top.
+     */
+    static int toRow(int range, int r) {
+        return r + range;
+    }
+
+    /**
+     * Converts an axial Coordinate into its column in the file.
+     * @param range the range of the grid.
+     * @param q the q value of the Coordinate.
+     * @param r the r value of the Coordinate.
+     * @return the column of the Coordinate, counting from 0 at the first cell of its row.
+     */
+    static int toColumn(int range, int q, int r) {
+        return q + Math.min(range, toRow(range, r));
+    }
+}
@@ -0,0 +1,566 @@
+package lms.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class responsible for checking a text save file in a single pass without loading it, and
+ * reporting every problem found rather than only the first.
+ * <p>
+ * The file is split into lines, sections, numbers and link fields by the same SaveLines as
+ * GameLoader, and is checked against the same rules: the number of sections, the range and
+ * counts, the keys, the width and cells of every row of the hexagon, the number of producers and
+ * receivers against their counts and keys, and every link line, including links to nodes that do
+ * not exist and links which would give a producer an input or a receiver an output. No GameGrid,
+ * node or Item is created; only the type of every node is kept, so that the link lines can be
+ * checked.
+ * <p>
+ * A file has no errors exactly when GameLoader can load it. Problems that GameLoader ignores, such
+ * as a belt linked to a node that does not exist or rows missing from the bottom of the grid, are
+ * reported as warnings.
+ */
+public class SaveValidator {
+    /** The number of sections in a valid file. */
+    private static final int SECTIONS = SaveLines.SECTIONS;
+    /** The number of characters read at a time. */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** The number of problems after which the rest of the file is not checked. */
+    private static final int MAX_DIAGNOSTICS = 1000;
+    /** Value of a number which is not valid, or of a count which has not been read. */
+    private static final int INVALID = SaveLines.INVALID;
+
+    /** The problems found so far. */
+    private List<SaveDiagnostic> diagnostics;
+    /** Whether enough problems have been found that the rest of the file is not checked. */
+    private boolean stopped;
+    /** Whether characters which are not ASCII are errors, as when loading from a Path. */
+    private boolean asciiOnly;
+
+    /** The number of the line currently being read, counting from 1. */
+    private int lineNumber;
+    /** The line currently being read. */
+    private final SaveLines lines = new SaveLines();
+
+    /** The section currently being checked, from 0. */
+    private int section;
+    /** The number of lines checked so far in the current section. */
+    private int sectionLine;
+    /** The range of the grid, or INVALID if it is not known. */
+    private int range;
+    /** The number of producers given in section 2, or INVALID if it is not known. */
+    private int numberProducers;
+    /** The number of receivers given in section 2, or INVALID if it is not known. */
+    private int numberReceivers;
+    /** The line the number of producers is given on. */
+    private int producersLine;
+    /** The line the number of receivers is given on. */
+    private int receiversLine;
+    /** The number of producer keys given. */
+    private int producerKeys;
+    /** The number of receiver keys given. */
+    private int receiverKeys;
+    /** The line that the producer keys start on. */
+    private int producerKeysLine;
+    /** The line that the receiver keys start on. */
+    private int receiverKeysLine;
+    /** The number of producers on the grid so far. */
+    private int producers;
+    /** The number of receivers on the grid so far. */
+    private int receivers;
+    /** The row of the grid that the next line of section 5 represents. */
+    private int row;
+    /** The encoding of every node on the grid so far, indexed by id - 1. */
+    private byte[] types;
+    /** The number of nodes on the grid so far. */
+    private int nodeCount;
+
+    /** The first fields of the link line currently being checked. */
+    private final int[] fields = new int[3];
+    /** The index in the line at which each of the first fields starts. */
+    private final int[] fieldStarts = new int[3];
+    /** The index in the line at which each of the first fields ends. */
+    private final int[] fieldEnds = new int[3];
+
+    /**
+     * Constructs a new SaveValidator, which can then be used to check any number of files.
+     */
+    public SaveValidator() {
+    }
+
+    /**
+     * Checks a text save file with this validator.
+     * @param reader the reader to read the file from.
+     * @return every problem found, in the order they appear in the file, which is empty if the
+     * file has no problems.
+     * @throws IOException if there is an error reading from the reader.
+     */
+    public List<SaveDiagnostic> check(Reader reader) throws IOException {
+        begin(false);
+        try {
+            char[] buffer = new char[BUFFER_SIZE];
+            int read;
+            while (!stopped && (read = reader.read(buffer)) != -1) {
+                accept(buffer, read);
+            }
+            return finish();
+        } finally {
+            diagnostics = null;
+            types = null;
+        }
+    }
+
+    /**
+     * Checks a text save file with this validator, reading it as ASCII in the same way as
+     * GameLoader.load(java.nio.file.Path).
+     * @param file the path of the file to check.
+     * @return every problem found, in the order they appear in the file, which is empty if the
+     * file has no problems.
+     * @throws IOException if there is an error reading the file.
+     */
+    public List<SaveDiagnostic> check(java.nio.file.Path file) throws IOException {
+        begin(true);
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            char[] buffer = new char[BUFFER_SIZE];
+            int read;
+            while (!stopped && (read = in.read(bytes)) != -1) {
+                // Read as characters, so a character that is not ASCII is reported, not thrown
+                for (int i = 0; i < read; i++) {
+                    buffer[i] = (char) (bytes[i] & 0xFF);
+                }
+                accept(buffer, read);
+            }
+            return finish();
+        } finally {
+            diagnostics = null;
+            types = null;
+        }
+    }
+
+    /**
+     * Checks a text save file. Each call uses its own SaveValidator, so this method can be called
+     * from any number of threads at once.
+     * @param reader the reader to read the file from.
+     * @return every problem found, which is empty if the file has no problems.
+     * @throws IOException if there is an error reading from the reader.
+     */
+    public static List<SaveDiagnostic> validate(Reader reader) throws IOException {
+        return new SaveValidator().check(reader);
+    }
+
+    /**
+     * Checks a text save file, reading it as ASCII. Each call uses its own SaveValidator, so this
+     * method can be called from any number of threads at once.
+     * @param file the path of the file to check.
+     * @return every problem found, which is empty if the file has no problems.
+     * @throws IOException if there is an error reading the file.
+     */
+    public static List<SaveDiagnostic> validate(java.nio.file.Path file) throws IOException {
+        return new SaveValidator().check(file);
+    }
+
+    /**
+     * Checks whether any of the given problems stops a file from being loaded.
+     * @param diagnostics the problems found in a file.
+     * @return true if any of the problems is an error, false if there are only warnings.
+     */
+    public static boolean hasErrors(List<SaveDiagnostic> diagnostics) {
+        for (SaveDiagnostic diagnostic : diagnostics) {
+            if (!diagnostic.isWarning()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A helper method used to reset the state of the validator before a file is checked.
+     * @param ascii whether characters which are not ASCII are errors.
+     */
+    private void begin(boolean ascii) {
+        diagnostics = new ArrayList<>();
+        stopped = false;
+        asciiOnly = ascii;
+        lineNumber = 1;
+        lines.reset();
+        section = 0;
+        sectionLine = 0;
+        range = INVALID;
+        numberProducers = INVALID;
+        numberReceivers = INVALID;
+        producersLine = 0;
+        receiversLine = 0;
+        producerKeys = 0;
+        receiverKeys = 0;
+        producerKeysLine = 0;
+        receiverKeysLine = 0;
+        producers = 0;
+        receivers = 0;
+        row = 0;
+        types = new byte[16];
+        nodeCount = 0;
+    }
+
+    /**
+     * A helper method used to split a block of characters into lines, checking each line once it
+     * has been read in full.
+     * @param buffer the block of characters.
+     * @param read the number of characters in the block.
+     */
+    private void accept(char[] buffer, int read) {
+        int start = 0;
+        while (!stopped && (start = lines.accept(buffer, start, read)) >= 0) {
+            endLine();
+        }
+    }
+
+    /**
+     * A helper method used to check the whole file once it has been read.
+     * @return every problem found.
+     */
+    private List<SaveDiagnostic> finish() {
+        // The last line does not need to be terminated
+        if (lines.length() > 0 && !stopped) {
+            endLine();
+        }
+        if (stopped) {
+            return diagnostics;
+        }
+
+        if (section < SECTIONS - 1) {
+            error(lineNumber, 0, "Expected " + SECTIONS + " sections, found " + (section + 1));
+        }
+        if (section >= SECTIONS - 2) {
+            checkCount(numberProducers, producers, producersLine, "producers");
+            checkCount(numberReceivers, receivers, receiversLine, "receivers");
+            if (producerKeys != producers) {
+                error(producerKeysLine, 0, producerKeys + " producer keys are given, but the"
+                        + " grid has " + producers + " producers");
+            }
+            if (receiverKeys != receivers) {
+                error(receiverKeysLine, 0, receiverKeys + " receiver keys are given, but the"
+                        + " grid has " + receivers + " receivers");
+            }
+        }
+        return diagnostics;
+    }
+
+    /**
+     * A helper method used to check the number of producers or receivers on the grid against
+     * the number given in section 2.
+     * @param given the number given, or INVALID if it is not known.
+     * @param found the number on the grid.
+     * @param at the line the number is given on.
+     * @param name the name of the nodes counted.
+     */
+    private void checkCount(int given, int found, int at, String name) {
+        if (given != INVALID && given != found) {
+            error(at, 1, given + " " + name + " are given, but the grid has " + found);
+        }
+    }
+
+    /**
+     * A helper method used to check the current line according to the section it is in, once it
+     * has been read in full.
+     */
+    private void endLine() {
+        char[] line = lines.chars();
+        if (asciiOnly) {
+            for (int i = 0; i < lines.length(); i++) {
+                if (line[i] > 127) {
+                    error(lineNumber, i + 1, "Character is not ASCII");
+                    break;
+                }
+            }
+        }
+
+        if (section == SECTIONS) {
+            // Everything after an extra section has already been reported
+        } else if (lines.isSectionEnd()) {
+            endSection();
+            section++;
+            sectionLine = 0;
+            if (section == SECTIONS) {
+                error(lineNumber, 1, "Too many sections, expected " + SECTIONS);
+            } else if (section == 2) {
+                producerKeysLine = lineNumber + 1;
+            } else if (section == 3) {
+                receiverKeysLine = lineNumber + 1;
+            }
+        } else {
+            switch (section) {
+                case 0 -> {
+                    if (sectionLine == 0) {
+                        range = parseLine("Range");
+                        if (range != INVALID && BinaryFormat.cellCount(range) > Integer.MAX_VALUE) {
+                            error(lineNumber, 1, "Range " + range + " is too large");
+                            range = INVALID;
+                        }
+                    }
+                }
+                case 1 -> {
+                    if (sectionLine == 0) {
+                        numberProducers = parseLine("Number of producers");
+                        producersLine = lineNumber;
+                    } else if (sectionLine == 1) {
+                        numberReceivers = parseLine("Number of receivers");
+                        receiversLine = lineNumber;
+                    }
+                }
+                case 2 -> {
+                    checkKey("Producer");
+                    producerKeys++;
+                }
+                case 3 -> {
+                    checkKey("Receiver");
+                    receiverKeys++;
+                }
+                case 4 -> checkRow();
+                default -> checkLink();
+            }
+            sectionLine++;
+        }
+        lines.clear();
+        lineNumber++;
+    }
+
+    /**
+     * A helper method used to check that the section being checked was complete, when its end is
+     * reached.
+     */
+    private void endSection() {
+        if (section == 0 && sectionLine < 1) {
+            error(lineNumber, 0, "Missing range");
+        } else if (section == 1 && sectionLine < 2) {
+            error(lineNumber, 0, sectionLine == 0
+                    ? "Missing number of producers and receivers"
+                    : "Missing number of receivers");
+        } else if (section == 4 && range != INVALID && row < SaveRows.rows(range)) {
+            warning(lineNumber, 0, "Grid has " + row + " rows, expected " + SaveRows.rows(range)
+                    + ", the rest are left unset");
+        }
+    }
+
+    /**
+     * A helper method used to parse the current line as a single non-negative number.
+     * @param name the name of the number, for the problem reported if it is invalid.
+     * @return the number on the current line, or INVALID if it is not a valid number.
+     */
+    private int parseLine(String name) {
+        int value = lines.parseLine();
+        if (value == INVALID) {
+            error(lineNumber, 1, name + " must be a non-negative whole number");
+        }
+        return value;
+    }
+
+    /**
+     * A helper method used to check the key on the current line.
+     * @param name the type of node the key is for.
+     */
+    private void checkKey(String name) {
+        if (lines.length() == 0) {
+            error(lineNumber, 0, name + " key is empty");
+        }
+    }
+
+    /**
+     * A helper method used to check a row of the grid section, counting the nodes in it. Rows
+     * are checked against the width of their row of the hexagon if the range is known.
+     */
+    private void checkRow() {
+        boolean inGrid = range != INVALID && row < SaveRows.rows(range);
+        int width = inGrid ? SaveRows.width(range, row) : 0;
+        if (range != INVALID && !inGrid) {
+            error(lineNumber, 0, "Row is outside of the hexagon, which has "
+                    + SaveRows.rows(range) + " rows");
+        }
+
+        int column = 0;
+        boolean overflow = false;
+        char[] line = lines.chars();
+        for (int i = 0; i < lines.length(); i++) {
+            char cell = line[i];
+
+            // As for GameLoader, even a space after the last cell of a row is too many
+            if (inGrid && column == width && !overflow) {
+                error(lineNumber, i + 1, "Row " + (row + 1) + " has more than " + width
+                        + " cells");
+                overflow = true;
+            }
+
+            switch (cell) {
+                case ' ' -> {
+                    continue;
+                }
+                case 'w', 'o' -> {
+                }
+                case 'p', 'r', 'b' -> {
+                    if (cell == 'p') {
+                        producers++;
+                    } else if (cell == 'r') {
+                        receivers++;
+                    }
+                    if (nodeCount == types.length) {
+                        types = Arrays.copyOf(types, nodeCount * 2);
+                    }
+                    types[nodeCount++] = (byte) cell;
+                }
+                // Still counted as a cell, so the width of the row is not reported as well
+                default -> error(lineNumber, i + 1, "Invalid cell '" + cell + "'");
+            }
+            column++;
+        }
+        if (inGrid && column < width) {
+            error(lineNumber, 0, "Row " + (row + 1) + " has " + column + " cells, expected "
+                    + width);
+        }
+        row++;
+    }
+
+    /**
+     * A helper method used to check a line of the link section, in the same way as GameLoader
+     * links nodes from it. The line is split on either "-" or "," into fields.
+     */
+    private void checkLink() {
+        int count = lines.parseFields(fields, fieldStarts, fieldEnds);
+
+        if (count == 0) {
+            error(lineNumber, 0, "Link line has no node id");
+            return;
+        }
+        if (!isNode(fields[0])) {
+            unknownNode(0, false);
+            return;
+        }
+        int id = fields[0];
+
+        switch (types[id - 1]) {
+            case 'p' -> {
+                if (count != 2) {
+                    error(lineNumber, 0, "Producer " + id + " must be linked as id-next");
+                } else if (!isNode(fields[1])) {
+                    unknownNode(1, false);
+                } else {
+                    checkInput(fields[1]);
+                }
+            }
+            case 'r' -> {
+                if (count != 2) {
+                    error(lineNumber, 0, "Receiver " + id + " must be linked as id-previous");
+                } else if (!isNode(fields[1])) {
+                    unknownNode(1, false);
+                } else {
+                    checkOutput(fields[1]);
+                }
+            }
+            default -> {
+                if (count > 1) {
+                    if (isNode(fields[1])) {
+                        checkOutput(fields[1]);
+                    } else {
+                        unknownNode(1, true);
+                    }
+                }
+                if (count > 2) {
+                    if (isNode(fields[2])) {
+                        checkInput(fields[2]);
+                    } else {
+                        unknownNode(2, true);
+                    }
+                }
+                if (count > 3) {
+                    warning(lineNumber, 0, "Fields after the third are ignored");
+                }
+            }
+        }
+    }
+
+    /**
+     * A helper method used to check whether a link field is the id of a node on the grid.
+     * @param id the field.
+     * @return true if there is a node with the id, false otherwise.
+     */
+    private boolean isNode(int id) {
+        return id >= 1 && id <= nodeCount;
+    }
+
+    /**
+     * A helper method used to report a link field that is not the id of a node on the grid. Empty
+     * fields which GameLoader ignores are not reported.
+     * @param field the index of the field.
+     * @param ignored whether GameLoader ignores the field, rather than failing to load.
+     */
+    private void unknownNode(int field, boolean ignored) {
+        if (ignored && fieldStarts[field] == fieldEnds[field]) {
+            // An empty field is how a belt without an input or output is written
+            return;
+        }
+        String text = new String(lines.chars(), fieldStarts[field],
+                fieldEnds[field] - fieldStarts[field]);
+        if (ignored) {
+            warning(lineNumber, fieldStarts[field] + 1, "Link to unknown node '" + text
+                    + "' is ignored");
+        } else {
+            error(lineNumber, fieldStarts[field] + 1, "Unknown node '" + text + "'");
+        }
+    }
+
+    /**
+     * A helper method used to check that a node linked to as an output can have an input.
+     * @param id the id of the node.
+     */
+    private void checkInput(int id) {
+        if (types[id - 1] == 'p') {
+            error(lineNumber, 0, "Producer " + id + " cannot have an input");
+        }
+    }
+
+    /**
+     * A helper method used to check that a node linked to as an input can have an output.
+     * @param id the id of the node.
+     */
+    private void checkOutput(int id) {
+        if (types[id - 1] == 'r') {
+            error(lineNumber, 0, "Receiver " + id + " cannot have an output");
+        }
+    }
+
+    /**
+     * A helper method used to record an error.
+     * @param at the line of the error.
+     * @param column the column of the error, or 0 for the whole line.
+     * @param message a description of the error.
+     */
+    private void error(int at, int column, String message) {
+        report(new SaveDiagnostic(at, column, message, false));
+    }
+
+    /**
+     * A helper method used to record a warning.
+     * @param at the line of the warning.
+     * @param column the column of the warning, or 0 for the whole line.
+     * @param message a description of the warning.
+     */
+    private void warning(int at, int column, String message) {
+        report(new SaveDiagnostic(at, column, message, true));
+    }
+
+    /**
+     * A helper method used to record a problem, and stop checking once there are too many.
+     * @param diagnostic the problem found.
+     */
+    private void report(SaveDiagnostic diagnostic) {
+        diagnostics.add(diagnostic);
+        if (diagnostics.size() == MAX_DIAGNOSTICS) {
+            diagnostics.add(new SaveDiagnostic(diagnostic.getLine(), 0,
+                    "Too many problems, the rest of the file was not checked", false));
+            stopped = true;
+        }
+    }
+}
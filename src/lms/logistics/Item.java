@@ -1,41 +1,83 @@
 package lms.logistics;
 
-import java.util.Objects;
-
 /**
  * Class to manage the name of an Item object. Provides implementation for equals, hashcode and
  * toString.
+ * @see ItemRegistry
  */
 public class Item {
     /** The name (key) for this Item. */
     private final String name;
 
+    /** The id of this Item in its registry, or -1 if it was not interned. */
+    private final int id;
+
+    /** The registry this Item was interned in, or null if it was not interned. */
+    private final ItemRegistry registry;
+
     /**
-     * Constructs an Item with the given name.
+     * Constructs an Item with the given name, which does not belong to any registry.
      * @param name the name or key of this item.
      * @throws IllegalArgumentException if the item name is null or empty string.
      */
     public Item(String name) throws IllegalArgumentException {
+        this(name, -1, null);
+    }
+
+    /**
+     * Constructs an Item with the given name, interned in the given registry.
+     * @param name the name or key of this item.
+     * @param id the id of this item in the registry, or -1.
+     * @param registry the registry this item was interned in, or null.
+     * @throws IllegalArgumentException if the item name is null or empty string.
+     */
+    Item(String name, int id, ItemRegistry registry) throws IllegalArgumentException {
         if (name == null || name.isEmpty()) {
             throw new IllegalArgumentException();
         }
         this.name = name;
+        this.id = id;
+        this.registry = registry;
+    }
+
+    /**
+     * Accessor method to get the id of this Item in the registry it was interned in.
+     * @return the id of this Item, or -1 if it was not interned.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Accessor method to get the registry this Item was interned in.
+     * @return the ItemRegistry of this Item, or null if it was not interned.
+     */
+    public ItemRegistry getRegistry() {
+        return registry;
     }
 
     /**
      * Default and expected implementation specific to the needs of the comparison requirements.
-     * Indicates whether some other object is "equal to" this one. Compares the class and
-     * properties of the other object and decides if they are equal.
+     * Indicates whether some other object is "equal to" this one. Two Items are equal if they
+     * are of the same class and have the same name. Items interned in the same registry are
+     * compared by their ids.
      * @param other the object to compare this Item to for equality.
      * @return true if the given object is equal to this Item, false otherwise.
      */
     @Override
     public boolean equals(Object other) {
-        if (other == null) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || this.getClass() != other.getClass()) {
             return false;
         }
-        return Objects.equals(this.getClass(), other.getClass()) && Objects.equals(this.hashCode(),
-                other.hashCode());
+
+        Item that = (Item) other;
+        if (registry != null && registry == that.registry) {
+            return id == that.id;
+        }
+        return name.equals(that.name);
     }
 
     /**
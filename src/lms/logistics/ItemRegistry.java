@@ -0,0 +1,85 @@
+package lms.logistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns Items by name, so that every Item with a given name shares a single instance and a
+ * dense integer id (0, 1, 2, ... in the order the names were first seen). Items interned in the
+ * same registry are compared by id, which allows them to be stored as primitives.
+ * <p>
+ * A registry is not thread safe, names should be interned from a single thread.
+ */
+public class ItemRegistry {
+    /** The interned Items, indexed by id. */
+    private final List<Item> items;
+
+    /** The interned Items, keyed by name. */
+    private final Map<String, Item> names;
+
+    /**
+     * Constructs a new, empty ItemRegistry.
+     */
+    public ItemRegistry() {
+        this.items = new ArrayList<>();
+        this.names = new HashMap<>();
+    }
+
+    /**
+     * Returns the Item with the given name, creating and assigning it the next id if the name has
+     * not been interned before.
+     * @param name the name or key of the item.
+     * @return the interned Item with the given name.
+     * @throws IllegalArgumentException if the item name is null or empty string.
+     */
+    public Item intern(String name) throws IllegalArgumentException {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+
+        Item item = names.get(name);
+        if (item == null) {
+            item = new Item(name, items.size(), this);
+            items.add(item);
+            names.put(name, item);
+        }
+        return item;
+    }
+
+    /**
+     * Returns the id of the given Item in this registry. Items from elsewhere are interned by
+     * name first.
+     * @param item the Item to get the id of.
+     * @return the id of the Item in this registry.
+     * @throws IllegalArgumentException if the item is null.
+     */
+    public int idOf(Item item) throws IllegalArgumentException {
+        if (item == null) {
+            throw new IllegalArgumentException();
+        }
+        if (item.getRegistry() == this) {
+            return item.getId();
+        }
+        return intern(item.toString()).getId();
+    }
+
+    /**
+     * Accessor method to get an interned Item by its id.
+     * @param id the id of the Item.
+     * @return the Item with the given id.
+     * @throws IndexOutOfBoundsException if no Item has the given id.
+     */
+    public Item get(int id) throws IndexOutOfBoundsException {
+        return items.get(id);
+    }
+
+    /**
+     * Accessor method to get the number of Items interned in this registry.
+     * @return the number of interned Items, which is one more than the largest id.
+     */
+    public int size() {
+        return items.size();
+    }
+}
@@ -105,6 +105,26 @@ public abstract class Transport implements Tickable, GridComponent {
         this.inventory = inventory;
     }
 
+    /**
+     * get the Item held by this node, without the restrictions that subclasses place on
+     * getInventory(). Used by execution backends that keep node state outside of the object
+     * model and need to copy it in.
+     * @return Item stored by this node, or null if it is empty
+     */
+    public final Item getStoredInventory() {
+        return inventory;
+    }
+
+    /**
+     * set the Item held by this node, without the restrictions that subclasses place on
+     * setInventory(). Used by execution backends that keep node state outside of the object
+     * model and need to write it back.
+     * @param inventory Item to store in this node, or null to empty it
+     */
+    public final void setStoredInventory(Item inventory) {
+        this.inventory = inventory;
+    }
+
     /**
      * get the Path object, containing node, next and previous pathways
      * @return Path
@@ -32,6 +32,9 @@ import lms.logistics.Path;
  */
 public class Producer extends Container {
 
+    /**
+     * The number of times this producer has been ticked, a new item is produced on odd ticks.
+     */
     private int counter;
 
     public Producer(int id, Item key) {
@@ -39,6 +42,24 @@ public class Producer extends Container {
         counter = 0;
     }
 
+    /**
+     * Accessor method for the number of times this producer has been ticked.
+     *
+     * @return the tick counter of this producer
+     */
+    public int getCounter() {
+        return counter;
+    }
+
+    /**
+     * Sets the number of times this producer has been ticked, used to restore its phase.
+     *
+     * @param counter the tick counter for this producer
+     */
+    public void setCounter(int counter) {
+        this.counter = counter;
+    }
+
     @Override
     public String getEncoding() {
         return "p";
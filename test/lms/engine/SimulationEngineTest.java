@@ -0,0 +1,240 @@
+package lms.engine;
+
+import lms.exceptions.FileFormatException;
+import lms.grid.Coordinate;
+import lms.grid.GameGrid;
+import lms.logistics.Item;
+import lms.logistics.Transport;
+import lms.logistics.belts.Belt;
+import lms.logistics.container.Producer;
+import lms.logistics.container.Receiver;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SimulationEngineTest {
+    private Item item;
+    private Producer producer;
+    private Belt belt;
+    private Receiver receiver;
+    private Belt loose;
+    private SimulationEngine engine;
+
+    @Before
+    public void setUp() {
+        item = new Item("key");
+        producer = new Producer(1, item);
+        belt = new Belt(2);
+        receiver = new Receiver(3, item);
+        loose = new Belt(4);
+
+        producer.setOutput(belt.getPath());
+        belt.setInput(producer.getPath());
+        belt.setOutput(receiver.getPath());
+        receiver.setInput(belt.getPath());
+
+        GameGrid grid = new GameGrid(1);
+        grid.setCoordinate(new Coordinate(-1, 0), producer);
+        grid.setCoordinate(new Coordinate(0, 0), belt);
+        grid.setCoordinate(new Coordinate(1, 0), receiver);
+        grid.setCoordinate(new Coordinate(0, 1), loose);
+
+        engine = new SimulationEngine(grid);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullGrid() {
+        new SimulationEngine(null);
+    }
+
+    @Test
+    public void chains() {
+        assertEquals(2, engine.getChainCount());
+    }
+
+    @Test
+    public void recompileOnGridChange() {
+        engine.getGrid().setCoordinate(new Coordinate(1, -1), new Belt(5));
+        assertEquals(3, engine.getChainCount());
+    }
+
+    @Test
+    public void recompileOnInvalidate() {
+        belt.setOutput(null);
+        receiver.setInput(null);
+        assertEquals(2, engine.getChainCount());
+        engine.invalidate();
+        assertEquals(3, engine.getChainCount());
+        assertEquals(4, engine.getSchedule().size());
+    }
+
+    @Test
+    public void tickCount() {
+        assertEquals(0, engine.getTickCount());
+        engine.tick();
+        engine.step(9);
+        assertEquals(10, engine.getTickCount());
+    }
+
+    @Test
+    public void itemsMove() {
+        engine.tick();
+        assertEquals(item, belt.getInventory());
+        engine.tick();
+        assertNull(belt.getInventory());
+        engine.tick();
+        assertEquals(item, belt.getInventory());
+        assertNull(loose.getInventory());
+    }
+
+    @Test
+    public void badStateSkipsChain() {
+        Item other = new Item("other");
+        belt.setInventory(other);
+        engine.step(2);
+        assertEquals(item, belt.getInventory());
+        assertEquals(2, engine.getTickCount());
+    }
+
+    @Test
+    public void arrayBackend() {
+        engine.setBackend(Backend.ARRAYS);
+        engine.tick();
+        assertEquals(item, belt.getInventory());
+        engine.tick();
+        assertNull(belt.getInventory());
+        engine.tick();
+        assertEquals(item, belt.getInventory());
+        assertEquals(3, producer.getCounter());
+        assertEquals(3, engine.getTickCount());
+    }
+
+    @Test
+    public void arrayBackendBadState() {
+        engine.setBackend(Backend.ARRAYS);
+        belt.setInventory(new Item("other"));
+        engine.step(2);
+        assertEquals(item, belt.getInventory());
+        assertEquals(1, producer.getCounter());
+    }
+
+    @Test
+    public void parallel() {
+        engine.setParallelism(4);
+        assertEquals(4, engine.getParallelism());
+        engine.step(3);
+        assertEquals(item, belt.getInventory());
+        assertEquals(3, engine.getTickCount());
+        engine.shutdown();
+        assertEquals(1, engine.getParallelism());
+    }
+
+    @Test
+    public void partition() {
+        int[] units = engine.getSchedule().partition(8);
+        assertEquals(3, units.length);
+        assertEquals(0, units[0]);
+        assertTrue(units[1] <= units[2]);
+        assertEquals(2, units[2]);
+        assertArrayEquals(new int[] {0, 2}, engine.getSchedule().partition(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullBackend() {
+        engine.setBackend(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void runBadRate() throws InterruptedException {
+        engine.run(1, 0);
+    }
+
+    @Test
+    public void runAtRate() throws InterruptedException {
+        engine.run(3, 1000);
+        assertEquals(3, engine.getTickCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void snapshotBadInterval() {
+        engine.setSnapshots(null, 0);
+    }
+
+    @Test
+    public void snapshotDisabled() {
+        assertFalse(engine.snapshot());
+    }
+
+    @Test
+    public void snapshotAndResume() throws IOException, FileFormatException {
+        java.nio.file.Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            engine.setBackend(Backend.ARRAYS);
+            engine.setSnapshots(file, 5);
+            engine.step(7);
+            engine.shutdown();
+
+            SimulationEngine resumed = SimulationEngine.resume(file);
+            assertEquals(5, resumed.getTickCount());
+            Transport resumedProducer = at(resumed, -1, 0);
+            Transport resumedBelt = at(resumed, 0, 0);
+            assertEquals(5, ((Producer) resumedProducer).getCounter());
+            assertEquals(item.toString(), resumedBelt.getStoredInventory().toString());
+
+            // The resumed simulation carries on to the same state as the original
+            resumed.step(2);
+            assertEquals(producer.getCounter(), ((Producer) resumedProducer).getCounter());
+            assertEquals(belt.getStoredInventory() == null,
+                    resumedBelt.getStoredInventory() == null);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private List<Transport> changedAfter(int ticks) {
+        engine.step(ticks);
+        List<Transport> changed = new ArrayList<>();
+        engine.forEachChanged(changed::add);
+        return changed;
+    }
+
+    @Test
+    public void changedNodes() {
+        // Every node is reported the first time, as nothing is known of what was shown before
+        assertEquals(4, changedAfter(0).size());
+        assertTrue(changedAfter(0).isEmpty());
+
+        // The producer refills with the same Item as it passes one on, and a receiver never
+        // shows an Item, so only the belt is seen to change
+        assertEquals(List.of(belt), changedAfter(1));
+        assertEquals(List.of(belt), changedAfter(1));
+
+        // The belt empties and fills again between reports, so there is no change to report
+        assertTrue(changedAfter(2).isEmpty());
+    }
+
+    @Test
+    public void changedNodesArrayBackend() {
+        engine.setBackend(Backend.ARRAYS);
+        changedAfter(0);
+        assertEquals(List.of(belt), changedAfter(1));
+        assertTrue(changedAfter(2).isEmpty());
+    }
+
+    @Test
+    public void changedNodesAfterRecompile() {
+        changedAfter(0);
+        engine.invalidate();
+        assertEquals(4, changedAfter(0).size());
+    }
+
+    private static Transport at(SimulationEngine engine, int q, int r) {
+        return (Transport) engine.getGrid().getView().get(new Coordinate(q, r));
+    }
+}
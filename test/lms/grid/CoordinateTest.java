@@ -0,0 +1,85 @@
+package lms.grid;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CoordinateTest {
+    private Coordinate origin;
+    private Coordinate coordinate;
+
+    @Before
+    public void setUp() {
+        origin = new Coordinate();
+        coordinate = new Coordinate(3, -5);
+    }
+
+    @Test
+    public void components() {
+        assertEquals(3, coordinate.getQ());
+        assertEquals(-5, coordinate.getR());
+        assertEquals(2, coordinate.getS());
+        assertEquals(coordinate, new Coordinate(3, -5, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void componentsNotZero() {
+        new Coordinate(1, 1, 1);
+    }
+
+    @Test
+    public void packed() {
+        long packed = Coordinate.pack(-7, 12);
+        assertEquals(-7, Coordinate.unpackQ(packed));
+        assertEquals(12, Coordinate.unpackR(packed));
+        assertEquals(new Coordinate(-7, 12), Coordinate.fromPacked(packed));
+        assertEquals(packed, new Coordinate(-7, 12).toPacked());
+    }
+
+    @Test
+    public void equalsHashCode() {
+        assertEquals(new Coordinate(3, -5), coordinate);
+        assertEquals(new Coordinate(3, -5).hashCode(), coordinate.hashCode());
+        assertNotEquals(new Coordinate(-5, 3), coordinate);
+        assertNotEquals(origin, null);
+    }
+
+    @Test
+    public void neighbours() {
+        assertEquals(new Coordinate(-1, 0), origin.getLeft());
+        assertEquals(new Coordinate(1, 0), origin.getRight());
+        assertEquals(new Coordinate(0, -1), origin.getTopLeft());
+        assertEquals(new Coordinate(1, -1), origin.getTopRight());
+        assertEquals(new Coordinate(-1, 1), origin.getBottomLeft());
+        assertEquals(new Coordinate(0, 1), origin.getBottomRight());
+        for (Orientation orientation : Orientation.values()) {
+            Coordinate neighbour = coordinate.neighbour(orientation);
+            assertTrue(coordinate.isNeighbour(neighbour));
+            assertEquals(neighbour.toPacked(),
+                    Coordinate.neighbour(coordinate.toPacked(), orientation));
+        }
+    }
+
+    @Test
+    public void isNeighbour() {
+        assertFalse(origin.isNeighbour(origin));
+        assertFalse(origin.isNeighbour(new Coordinate(1, 1)));
+        assertFalse(origin.isNeighbour(new Coordinate(2, 0)));
+        assertEquals(5, origin.distance(coordinate));
+    }
+
+    @Test
+    public void getDirection() {
+        for (Orientation orientation : Orientation.values()) {
+            assertEquals(orientation, coordinate.getDirection(coordinate.neighbour(orientation)));
+        }
+        assertEquals(Orientation.RIGHT, origin.getDirection(new Coordinate(4, 0)));
+        assertEquals(Orientation.TOP_RIGHT, origin.getDirection(new Coordinate(3, -3)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void getDirectionNotStraight() {
+        origin.getDirection(new Coordinate(2, -1));
+    }
+}
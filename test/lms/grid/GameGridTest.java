@@ -1,9 +1,14 @@
 package lms.grid;
 
+import lms.logistics.Item;
 import lms.logistics.belts.Belt;
+import lms.logistics.container.Producer;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -44,6 +49,127 @@ public class GameGridTest {
         assertNotSame(map2.hashCode(), map1.hashCode());
     }
 
+    @Test
+    public void gridSize() {
+        assertEquals(1, gameGrid1.getGrid().size());
+        assertEquals(397, gameGrid2.getGrid().size());
+        assertEquals(30301, gameGrid4.getView().size());
+        assertEquals(0, new GameGrid(-3).getView().size());
+    }
+
+    @Test
+    public void unsetCellsShareTile() {
+        gameGrid2.forEachCell((q, r, component) -> assertSame(Tile.UNSET, component));
+        assertEquals("ERROR", Tile.UNSET.getEncoding());
+    }
+
+    @Test
+    public void tileOf() {
+        assertSame(Tile.WALL, Tile.of(Tile.WALL));
+        assertSame(Tile.EMPTY, Tile.of(() -> "o"));
+        assertNull(Tile.of(new Belt(1)));
+    }
+
+    @Test
+    public void viewIsLive() {
+        Map<Coordinate, GridComponent> view = gameGrid2.getView();
+        Belt newBelt = new Belt(12);
+        gameGrid2.setCoordinate(new Coordinate(-11, 11), newBelt);
+        assertSame(newBelt, view.get(new Coordinate(-11, 11)));
+        assertSame(view, gameGrid2.getView());
+    }
+
+    @Test
+    public void viewMatchesCopy() {
+        gameGrid2.setCoordinate(new Coordinate(3, -5), new Belt(1));
+        assertEquals(gameGrid2.getGrid(), gameGrid2.getView());
+        assertFalse(gameGrid2.getView().containsKey(new Coordinate(12, 0)));
+        assertNull(gameGrid2.getView().get(new Coordinate(6, 6)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewReadOnly() {
+        gameGrid2.getView().put(new Coordinate(), new Belt(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setOutsideGrid() {
+        gameGrid2.setCoordinate(new Coordinate(6, 6), new Belt(1));
+    }
+
+    @Test
+    public void forEachCell() {
+        List<Coordinate> visited = new ArrayList<>();
+        gameGrid2.forEachCell((q, r, component) -> visited.add(new Coordinate(q, r)));
+        assertEquals(397, visited.size());
+        assertEquals(new Coordinate(0, -11), visited.get(0));
+        assertEquals(gameGrid2.getView().keySet(), new HashSet<>(visited));
+    }
+
+    @Test
+    public void forEachTransport() {
+        Belt newBelt = new Belt(12);
+        gameGrid2.setCoordinate(new Coordinate(2, 3), newBelt);
+        List<GridComponent> visited = new ArrayList<>();
+        gameGrid2.forEachTransport(visited::add);
+        assertEquals(List.of(newBelt), visited);
+    }
+
+    @Test
+    public void forEachCellInRing() {
+        int[] count = new int[1];
+        gameGrid2.forEachCellInRing(new Coordinate(), 4, (q, r, component) -> {
+            assertEquals(4, Math.max(Math.abs(q), Math.max(Math.abs(r), Math.abs(q + r))));
+            count[0]++;
+        });
+        assertEquals(24, count[0]);
+
+        count[0] = 0;
+        gameGrid2.forEachCellInRing(new Coordinate(11, -11), 1, (q, r, component) -> count[0]++);
+        assertEquals(3, count[0]);
+
+        count[0] = 0;
+        gameGrid2.forEachCellInRing(new Coordinate(), 0, (q, r, component) -> count[0]++);
+        assertEquals(1, count[0]);
+    }
+
+    @Test
+    public void forEachNeighbour() {
+        Belt newBelt = new Belt(12);
+        gameGrid2.setCoordinate(new Coordinate(0, 0).getBottomLeft(), newBelt);
+        List<Orientation> orientations = new ArrayList<>();
+        gameGrid2.forEachNeighbour(new Coordinate(), (orientation, component) -> {
+            orientations.add(orientation);
+            if (component == newBelt) {
+                assertEquals(Orientation.BOTTOM_LEFT, orientation);
+            }
+        });
+        assertEquals(6, orientations.size());
+
+        orientations.clear();
+        gameGrid2.forEachNeighbour(new Coordinate(-11, 0), (o, c) -> orientations.add(o));
+        assertEquals(List.of(Orientation.TOP_RIGHT, Orientation.RIGHT, Orientation.BOTTOM_RIGHT),
+                orientations);
+    }
+
+    @Test
+    public void linkDirections() {
+        Producer producer = new Producer(1, new Item("key"));
+        Belt belt = new Belt(2);
+        Belt unplaced = new Belt(5);
+        producer.setOutput(belt.getPath());
+        belt.setInput(producer.getPath());
+        belt.setOutput(unplaced.getPath());
+        gameGrid2.setCoordinate(new Coordinate(), producer);
+        gameGrid2.setCoordinate(new Coordinate().getBottomLeft(), belt);
+
+        Orientation[][] directions = gameGrid2.getLinkDirections();
+        assertEquals(3, directions.length);
+        assertNull(directions[0]);
+        assertArrayEquals(new Orientation[] {null, Orientation.BOTTOM_LEFT}, directions[1]);
+        assertArrayEquals(new Orientation[] {Orientation.TOP_RIGHT, null}, directions[2]);
+    }
+
     @Test
     public void setCoordinate() {
         Coordinate newCord = new Coordinate(0,0);
@@ -52,4 +178,34 @@ public class GameGridTest {
         assertEquals(gameGrid2.getGrid().get(newCord), newBelt);
     }
 
+
+    @Test
+    public void lazyRows() {
+        List<Integer> populated = new ArrayList<>();
+        GameGrid lazy = new GameGrid(3, (grid, r) -> {
+            populated.add(r);
+            grid.setCoordinate(new Coordinate(0, r), () -> "w");
+        });
+        assertTrue(populated.isEmpty());
+        assertFalse(lazy.isPopulated(0));
+
+        assertEquals("w", lazy.getView().get(new Coordinate(0, 1)).getEncoding());
+        lazy.forEachCellInRing(new Coordinate(0, -2), 1, (q, r, component) -> { });
+        assertEquals(List.of(1, -3, -2, -1), populated);
+        assertEquals(0, lazy.getModificationCount());
+
+        // Setting a cell populates its row first, so the source does not overwrite it
+        lazy.setCoordinate(new Coordinate(0, 3), () -> "o");
+        assertEquals("o", lazy.getView().get(new Coordinate(0, 3)).getEncoding());
+        assertEquals(1, lazy.getModificationCount());
+
+        lazy.forEachCell((q, r, component) -> { });
+        assertEquals(7, populated.size());
+        assertTrue(lazy.isPopulated(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lazyNullSource() {
+        new GameGrid(1, null);
+    }
 }
@@ -0,0 +1,180 @@
+package lms.io;
+
+import lms.exceptions.FileFormatException;
+import lms.grid.Coordinate;
+import lms.grid.GameGrid;
+import lms.grid.GridComponent;
+import lms.grid.Tile;
+import lms.logistics.Transport;
+import lms.logistics.belts.Belt;
+import lms.logistics.container.Producer;
+import lms.logistics.container.Receiver;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BinaryGameLoaderTest {
+    private static final String SIMPLE = "1\n_____\n1\n1\n_____\nab\n_____\nab\n_____\n"
+            + " w o\np b r\n w w\n_____\n2-1,3\n";
+
+    private GameGrid grid;
+
+    @Before
+    public void setUp() throws IOException, FileFormatException {
+        grid = GameLoader.load(new StringReader(SIMPLE));
+    }
+
+    private static byte[] save(GameGrid grid) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameSaver.save(grid, out);
+        return out.toByteArray();
+    }
+
+    private static GameGrid load(byte[] bytes) throws IOException, FileFormatException {
+        return BinaryGameLoader.load(new ByteArrayInputStream(bytes));
+    }
+
+    private static Transport at(GameGrid grid, int q, int r) {
+        return (Transport) grid.getView().get(new Coordinate(q, r));
+    }
+
+    @Test
+    public void roundTrip() throws IOException, FileFormatException {
+        GameGrid loaded = load(save(grid));
+        assertEquals(grid.getRange(), loaded.getRange());
+        grid.forEachCell((q, r, component) -> {
+            GridComponent other = loaded.getView().get(new Coordinate(q, r));
+            assertEquals(component.getEncoding(), other.getEncoding());
+        });
+
+        Transport producer = at(loaded, -1, 0);
+        Transport belt = at(loaded, 0, 0);
+        Transport receiver = at(loaded, 1, 0);
+        assertEquals(2, belt.getId());
+        assertSame(producer, belt.getInput().getNode());
+        assertSame(receiver, belt.getOutput().getNode());
+        assertSame(belt, producer.getOutput().getNode());
+        assertSame(belt, receiver.getInput().getNode());
+        assertEquals("ab", ((Producer) producer).getKey().toString());
+        assertSame(((Producer) producer).getKey(), ((Receiver) receiver).getKey());
+    }
+
+    @Test
+    public void roundTripUnsetAndIds() throws IOException, FileFormatException {
+        GameGrid sparse = new GameGrid(2);
+        Belt first = new Belt(40);
+        Belt second = new Belt(7);
+        first.setOutput(second.getPath());
+        second.setInput(first.getPath());
+        sparse.setCoordinate(new Coordinate(2, -2), first);
+        sparse.setCoordinate(new Coordinate(-2, 2), second);
+
+        GameGrid loaded = load(save(sparse));
+        assertSame(Tile.UNSET, loaded.getView().get(new Coordinate(0, 0)));
+        assertEquals(40, at(loaded, 2, -2).getId());
+        assertEquals(7, at(loaded, -2, 2).getId());
+        assertSame(at(loaded, -2, 2), at(loaded, 2, -2).getOutput().getNode());
+        assertNull(at(loaded, 2, -2).getInput());
+    }
+
+    @Test
+    public void saveIsCompact() throws IOException {
+        assertArrayEquals(save(grid), save(grid));
+        assertTrue(save(grid).length < SIMPLE.length() * 2);
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void badMagic() throws IOException, FileFormatException {
+        byte[] bytes = save(grid);
+        bytes[0] = 0;
+        load(bytes);
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void badVersion() throws IOException, FileFormatException {
+        byte[] bytes = save(grid);
+        bytes[7] = 99;
+        load(bytes);
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void truncated() throws IOException, FileFormatException {
+        byte[] bytes = save(grid);
+        load(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void producerWithInput() throws IOException, FileFormatException {
+        // The inputs come before the outputs (3 nodes) and the state (tick, held, counters)
+        byte[] bytes = save(grid);
+        int producerInput = bytes.length - Long.BYTES - 2 * 3 * Integer.BYTES
+                - 2 * 3 * Integer.BYTES;
+        ByteBuffer.wrap(bytes).putInt(producerInput, 2);
+        load(bytes);
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void hugeNodeCount() throws IOException, FileFormatException {
+        byte[] bytes = save(grid);
+        int nodeCount = bytes.length - Long.BYTES - 2 * 3 * Integer.BYTES
+                - 4 * 3 * Integer.BYTES - Integer.BYTES;
+        assertEquals(3, ByteBuffer.wrap(bytes).getInt(nodeCount));
+        ByteBuffer.wrap(bytes).putInt(nodeCount, Integer.MAX_VALUE);
+        load(bytes);
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void hugeItemCount() throws IOException, FileFormatException {
+        // The item count follows the magic number, version and range
+        byte[] bytes = save(grid);
+        int itemCount = 3 * Integer.BYTES;
+        assertEquals(1, ByteBuffer.wrap(bytes).getInt(itemCount));
+        ByteBuffer.wrap(bytes).putInt(itemCount, Integer.MAX_VALUE);
+        load(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void linkOffGrid() throws IOException {
+        Belt belt = new Belt(9);
+        at(grid, 0, 0).setOutput(belt.getPath());
+        save(grid);
+    }
+
+    @Test
+    public void stateRoundTrip() throws IOException, FileFormatException {
+        at(grid, 0, 0).setStoredInventory(((Producer) at(grid, -1, 0)).getKey());
+        ((Producer) at(grid, -1, 0)).setCounter(12);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SaveImage.capture(grid).withState(34).write(out);
+
+        BinaryGameLoader loader = new BinaryGameLoader();
+        GameGrid loaded = loader.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(34, loader.getTickCount());
+        assertEquals(12, ((Producer) at(loaded, -1, 0)).getCounter());
+        assertSame(((Producer) at(loaded, -1, 0)).getKey(), at(loaded, 0, 0).getStoredInventory());
+        assertEquals(String.valueOf(at(grid, 1, 0).getStoredInventory()),
+                String.valueOf(at(loaded, 1, 0).getStoredInventory()));
+    }
+
+    @Test
+    public void loadVersionOne() throws IOException, FileFormatException {
+        // A version 1 save is a version 2 save without the state block
+        byte[] bytes = save(grid);
+        int nodes = 3;
+        bytes = Arrays.copyOf(bytes, bytes.length - Long.BYTES - 2 * nodes * Integer.BYTES);
+        bytes[7] = 1;
+
+        BinaryGameLoader loader = new BinaryGameLoader();
+        GameGrid loaded = loader.read(new ByteArrayInputStream(bytes));
+        assertEquals(0, loader.getTickCount());
+        assertSame(at(loaded, 1, 0), at(loaded, 0, 0).getOutput().getNode());
+    }
+}
@@ -0,0 +1,310 @@
+package lms.io;
+
+import lms.exceptions.FileFormatException;
+import lms.grid.Coordinate;
+import lms.grid.GameGrid;
+import lms.grid.GridComponent;
+import lms.grid.Tile;
+import lms.logistics.Transport;
+import lms.logistics.container.Producer;
+import lms.logistics.container.Receiver;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class GameLoaderTest {
+    private static final String SIMPLE = "1\n_____\n1\n1\n_____\nab\n_____\nab\n_____\n"
+            + " w o\np b r\n w w\n_____\n2-1,3\n";
+
+    private static GameGrid load(String save) throws IOException, FileFormatException {
+        return GameLoader.load(new StringReader(save));
+    }
+
+    private static Transport at(GameGrid grid, int q, int r) {
+        return (Transport) grid.getView().get(new Coordinate(q, r));
+    }
+
+    @Test
+    public void loadSimple() throws IOException, FileFormatException {
+        GameGrid grid = load(SIMPLE);
+        assertEquals(1, grid.getRange());
+        assertEquals("w", grid.getView().get(new Coordinate(0, -1)).getEncoding());
+        assertEquals("o", grid.getView().get(new Coordinate(1, -1)).getEncoding());
+        assertSame(Tile.WALL, grid.getView().get(new Coordinate(-1, 1)));
+
+        Transport producer = at(grid, -1, 0);
+        Transport belt = at(grid, 0, 0);
+        Transport receiver = at(grid, 1, 0);
+        assertTrue(producer instanceof Producer);
+        assertTrue(receiver instanceof Receiver);
+        assertEquals(2, belt.getId());
+        assertSame(producer, belt.getInput().getNode());
+        assertSame(receiver, belt.getOutput().getNode());
+        assertSame(belt, producer.getOutput().getNode());
+        assertSame(belt, receiver.getInput().getNode());
+    }
+
+    @Test
+    public void loadLineEndings() throws IOException, FileFormatException {
+        assertEquals(2, at(load(SIMPLE.replace("\n", "\r\n")), 0, 0).getId());
+        assertEquals(2, at(load(SIMPLE.replace("\n", "\r")), 0, 0).getId());
+        assertEquals(2, at(load(SIMPLE.trim()), 0, 0).getId());
+    }
+
+    @Test
+    public void sharedKeys() throws IOException, FileFormatException {
+        GameGrid grid = load(SIMPLE);
+        assertSame(((Producer) at(grid, -1, 0)).getKey(), ((Receiver) at(grid, 1, 0)).getKey());
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void missingSection() throws IOException, FileFormatException {
+        load(SIMPLE.replace("_____\n2-1,3\n", ""));
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void extraSection() throws IOException, FileFormatException {
+        load(SIMPLE + "_____\n");
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void rowTooLong() throws IOException, FileFormatException {
+        load(SIMPLE.replace(" w w\n", " w w w\n"));
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void badCell() throws IOException, FileFormatException {
+        load(SIMPLE.replace(" w o\n", " w x\n"));
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void missingKey() throws IOException, FileFormatException {
+        load(SIMPLE.replace("_____\nab\n_____\n ", "_____\n_____\n "));
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void countMismatch() throws IOException, FileFormatException {
+        load(SIMPLE.replace("1\n1\n", "2\n1\n"));
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void danglingLink() throws IOException, FileFormatException {
+        load(SIMPLE + "1-7\n");
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void producerWithInput() throws IOException, FileFormatException {
+        load(SIMPLE + "2-,1\n");
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void receiverWithOutput() throws IOException, FileFormatException {
+        load(SIMPLE + "2-3\n");
+    }
+
+    @Test
+    public void reuseLoader() throws IOException, FileFormatException {
+        GameLoader loader = new GameLoader();
+        try {
+            loader.read(new StringReader(SIMPLE + "_____\n"));
+            fail();
+        } catch (FileFormatException expected) {
+            // The failed load must not affect the next one
+        }
+        GameGrid first = loader.read(new StringReader(SIMPLE));
+        GameGrid second = loader.read(new StringReader(SIMPLE));
+        assertNotSame(at(first, 0, 0), at(second, 0, 0));
+        assertEquals(2, at(second, 0, 0).getId());
+    }
+
+    @Test
+    public void concurrentLoads() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<GameGrid>> loads = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                loads.add(pool.submit(() -> load(SIMPLE)));
+            }
+            for (Future<GameGrid> future : loads) {
+                GameGrid grid = future.get();
+                assertSame(at(grid, -1, 0), at(grid, 0, 0).getInput().getNode());
+                assertSame(at(grid, 1, 0), at(grid, 0, 0).getOutput().getNode());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void loadMapped() throws IOException, FileFormatException {
+        java.nio.file.Path file = Files.createTempFile("grid", ".txt");
+        try {
+            Files.writeString(file, SIMPLE.replace("\n", "\r\n"));
+            GameGrid grid = GameLoader.load(file);
+            assertEquals(1, grid.getRange());
+            assertSame(at(grid, 1, 0), at(grid, 0, 0).getOutput().getNode());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void loadMappedNotAscii() throws IOException, FileFormatException {
+        java.nio.file.Path file = Files.createTempFile("grid", ".txt");
+        try {
+            Files.writeString(file, SIMPLE.replace("ab", "\u00e9b"), StandardCharsets.UTF_8);
+            GameLoader.load(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Builds a save of the given range where every row is a producer, a line of belts and a
+     * receiver, linked from left to right.
+     */
+    private static String rows(int range) {
+        StringBuilder grid = new StringBuilder();
+        StringBuilder links = new StringBuilder();
+        int rows = range * 2 + 1;
+        int id = 1;
+        for (int row = 0; row < rows; row++) {
+            int width = rows - Math.abs(row - range);
+            grid.append(" ".repeat(rows - width));
+            for (int column = 0; column < width; column++, id++) {
+                grid.append(column == 0 ? "p " : column == width - 1 ? "r\n" : "b ");
+                if (column == 0) {
+                    links.append(id).append('-').append(id + 1).append('\n');
+                } else if (column == width - 1) {
+                    links.append(id).append('-').append(id - 1).append('\n');
+                } else {
+                    links.append(id).append('-').append(id - 1).append(',').append(id + 1)
+                            .append('\n');
+                }
+            }
+        }
+        String keys = "key\n".repeat(rows);
+        return range + "\n_____\n" + rows + "\n" + rows + "\n_____\n" + keys + "_____\n" + keys
+                + "_____\n" + grid + "_____\n" + links;
+    }
+
+    @Test
+    public void loadMappedParallel() throws IOException, FileFormatException {
+        java.nio.file.Path file = Files.createTempFile("grid", ".txt");
+        try {
+            Files.writeString(file, rows(120));
+            GameLoader loader = new GameLoader();
+            loader.setParallelism(4);
+            assertSameGrid(GameLoader.load(file), loader.read(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void assertSameGrid(GameGrid expected, GameGrid actual) {
+        assertEquals(expected.getView().size(), actual.getView().size());
+        actual.forEachCell((q, r, component) -> {
+            GridComponent other = expected.getView().get(new Coordinate(q, r));
+            assertEquals(other.getEncoding(), component.getEncoding());
+            if (component instanceof Transport node) {
+                assertEquals(((Transport) other).getId(), node.getId());
+                assertEquals(((Transport) other).getInput() == null, node.getInput() == null);
+                if (node.getOutput() != null) {
+                    assertEquals(((Transport) other).getOutput().getNode().getId(),
+                            node.getOutput().getNode().getId());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void loadLazily() throws IOException, FileFormatException {
+        java.nio.file.Path file = Files.createTempFile("grid", ".txt");
+        try {
+            Files.writeString(file, "1\n_____\n1\n1\n_____\nab\n_____\nab\n_____\n"
+                    + " p b\nb b r\n w w\n_____\n1-2\n2-1,4\n4-2,5\n5-4\n");
+            GameGrid grid = GameLoader.loadLazily(file);
+            assertFalse(grid.isPopulated(-1));
+            assertFalse(grid.isPopulated(0));
+
+            // Links are only made once both of their nodes have been created
+            Transport belt = at(grid, 1, -1);
+            assertTrue(grid.isPopulated(-1));
+            assertFalse(grid.isPopulated(0));
+            assertEquals(2, belt.getId());
+            assertSame(at(grid, 0, -1), belt.getInput().getNode());
+            assertNull(belt.getOutput());
+
+            Transport next = at(grid, 0, 0);
+            assertSame(next, belt.getOutput().getNode());
+            assertSame(belt, next.getInput().getNode());
+            assertFalse(grid.isPopulated(1));
+            assertEquals(0, grid.getModificationCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void loadLazilyInAnyOrder() throws IOException, FileFormatException {
+        java.nio.file.Path file = Files.createTempFile("grid", ".txt");
+        try {
+            Files.writeString(file, rows(20));
+            GameGrid lazy = GameLoader.loadLazily(file);
+            for (int r = 20; r >= -20; r -= 3) {
+                lazy.getView().get(new Coordinate(0, r));
+            }
+            assertSameGrid(GameLoader.load(file), lazy);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void loadLazilyChecksLinks() throws IOException, FileFormatException {
+        java.nio.file.Path file = Files.createTempFile("grid", ".txt");
+        try {
+            Files.writeString(file, SIMPLE.replace("2-1,3", "2-1,3\n9-2"));
+            GameLoader.loadLazily(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void loadLazilyChecksLinkTypes() throws IOException {
+        java.nio.file.Path file = Files.createTempFile("grid", ".txt");
+        try {
+            Files.writeString(file, SIMPLE + "2-3\n");
+            try {
+                GameLoader.loadLazily(file);
+                fail();
+            } catch (FileFormatException expected) {
+                // Reported when the file is loaded, not when the row is first queried
+            }
+            try {
+                GameLoader.load(file);
+                fail();
+            } catch (FileFormatException expected) {
+                // The mapped loader reports it in the same way
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidParallelism() {
+        new GameLoader().setParallelism(0);
+    }
+}
@@ -0,0 +1,89 @@
+package lms.io;
+
+import lms.exceptions.FileFormatException;
+import lms.grid.Coordinate;
+import lms.grid.GameGrid;
+import lms.logistics.Item;
+import lms.logistics.Transport;
+import lms.logistics.belts.Belt;
+import lms.logistics.container.Producer;
+import lms.logistics.container.Receiver;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class GameWriterTest {
+    private static final String SIMPLE = "1\n_____\n1\n1\n_____\nab\n_____\nab\n_____\n"
+            + " w o\np b r\n w w\n_____\n1-2\n2-1,3\n3-2\n";
+
+    private static String write(GameGrid grid) throws IOException {
+        StringWriter out = new StringWriter();
+        GameWriter.write(grid, out);
+        return out.toString();
+    }
+
+    private static Transport at(GameGrid grid, int q, int r) {
+        return (Transport) grid.getView().get(new Coordinate(q, r));
+    }
+
+    @Test
+    public void writeLoaded() throws IOException, FileFormatException {
+        GameGrid grid = GameLoader.load(new StringReader(SIMPLE));
+        assertEquals(SIMPLE, write(grid));
+    }
+
+    @Test
+    public void renumbersIds() throws IOException, FileFormatException {
+        // Ids out of row order are written as positions, as GameLoader numbers them
+        GameGrid grid = new GameGrid(1);
+        Item item = new Item("ab");
+        Producer producer = new Producer(30, item);
+        Belt belt = new Belt(20);
+        Receiver receiver = new Receiver(10, item);
+        producer.setOutput(belt.getPath());
+        belt.setInput(producer.getPath());
+        belt.setOutput(receiver.getPath());
+        receiver.setInput(belt.getPath());
+        grid.setCoordinate(new Coordinate(0, -1), () -> "w");
+        grid.setCoordinate(new Coordinate(1, -1), () -> "o");
+        grid.setCoordinate(new Coordinate(-1, 0), producer);
+        grid.setCoordinate(new Coordinate(0, 0), belt);
+        grid.setCoordinate(new Coordinate(1, 0), receiver);
+        grid.setCoordinate(new Coordinate(-1, 1), () -> "w");
+        grid.setCoordinate(new Coordinate(0, 1), () -> "w");
+
+        assertEquals(SIMPLE, write(grid));
+    }
+
+    @Test
+    public void roundTripLooseBelts() throws IOException, FileFormatException {
+        GameGrid grid = GameLoader.load(new StringReader(SIMPLE));
+        at(grid, -1, 0).setOutput(null);
+        at(grid, 0, 0).setInput(null);
+        at(grid, 0, 0).setOutput(null);
+        at(grid, 1, 0).setInput(null);
+
+        String written = write(grid);
+        assertTrue(written.endsWith("_____\n"));
+        GameGrid loaded = GameLoader.load(new StringReader(written));
+        assertNull(at(loaded, 0, 0).getInput());
+        assertNull(at(loaded, 0, 0).getOutput());
+        assertEquals(written, write(loaded));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsetCell() throws IOException {
+        write(new GameGrid(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void linkOffGrid() throws IOException, FileFormatException {
+        GameGrid grid = GameLoader.load(new StringReader(SIMPLE));
+        at(grid, 0, 0).setOutput(new Belt(9).getPath());
+        write(grid);
+    }
+}
@@ -0,0 +1,175 @@
+package lms.io;
+
+import lms.exceptions.FileFormatException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SaveValidatorTest {
+    private static final String SIMPLE = "1\n_____\n1\n1\n_____\nab\n_____\nab\n_____\n"
+            + " w o\np b r\n w w\n_____\n1-2\n2-1,3\n3-2\n";
+
+    private static final String[] MALFORMED = {
+        SIMPLE.replace("\n", "\r"),
+        "",
+        SIMPLE + "_____\n",
+        SIMPLE.substring(0, SIMPLE.lastIndexOf("_____")),
+        SIMPLE.replaceFirst("1", "x"),
+        SIMPLE.replaceFirst("1", "+1"),
+        SIMPLE.replaceFirst("1", "99999999999"),
+        SIMPLE.replace("1\n1\n", "2\n1\n"),
+        SIMPLE.replace("1\n1\n", "1\n\n"),
+        SIMPLE.replace("1\n1\n", "1\n"),
+        SIMPLE.replace("_____\nab\n_____\n w", "_____\n\n_____\n w"),
+        SIMPLE.replace(" w o\n", " w x\n"),
+        SIMPLE.replace(" w o\n", " w o \n"),
+        SIMPLE.replace(" w w\n", " w w w\n"),
+        SIMPLE.replace(" w w\n", " w\n"),
+        SIMPLE.replace(" w w\n", ""),
+        SIMPLE.replace(" w w\n", " w w\n w\n"),
+        SIMPLE.replace("p b r", "p b b"),
+        SIMPLE + "2-3\n",
+        SIMPLE + "2-,1\n",
+        SIMPLE + "1-7\n",
+        SIMPLE + "1\n",
+        SIMPLE + "\n",
+        SIMPLE + "2-1,7\n",
+        SIMPLE + "2-,3\n",
+        SIMPLE + "2-1,3,1\n",
+        SIMPLE + "99999999999-1\n",
+        SIMPLE.replace("ab", "\u00e9b"),
+    };
+
+    private static List<SaveDiagnostic> validate(String save) throws IOException {
+        return SaveValidator.validate(new StringReader(save));
+    }
+
+    private static boolean loads(String save) throws IOException {
+        try {
+            GameLoader.load(new StringReader(save));
+            return true;
+        } catch (FileFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean loads(java.nio.file.Path file) throws IOException {
+        try {
+            GameLoader.load(file);
+            return true;
+        } catch (FileFormatException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void validSave() throws IOException {
+        assertTrue(validate(SIMPLE).isEmpty());
+        assertTrue(validate(SIMPLE.replace("\n", "\r\n")).isEmpty());
+    }
+
+    @Test
+    public void reportsEveryError() throws IOException {
+        List<SaveDiagnostic> diagnostics = validate(SIMPLE.replace(" w o\n", " w x\n")
+                .replace(" w w\n", " w w w\n").replace("3-2\n", "3-2\n9-1\n"));
+        assertEquals(3, diagnostics.size());
+        assertEquals("10:4: error: Invalid cell 'x'", diagnostics.get(0).toString());
+        assertEquals(12, diagnostics.get(1).getLine());
+        assertEquals(5, diagnostics.get(1).getColumn());
+        assertEquals("17:1: error: Unknown node '9'", diagnostics.get(2).toString());
+        assertTrue(SaveValidator.hasErrors(diagnostics));
+    }
+
+    @Test
+    public void countMismatch() throws IOException {
+        List<SaveDiagnostic> diagnostics = validate(SIMPLE.replace("1\n1\n", "2\n1\n"));
+        assertEquals(1, diagnostics.size());
+        assertEquals(3, diagnostics.get(0).getLine());
+    }
+
+    @Test
+    public void wrongSections() throws IOException {
+        assertEquals("17:1: error: Too many sections, expected 6",
+                validate(SIMPLE + "_____\n1-2\n").get(0).toString());
+        assertEquals("Expected 6 sections, found 5",
+                validate(SIMPLE.substring(0, SIMPLE.lastIndexOf("_____"))).get(0).getMessage());
+    }
+
+    @Test
+    public void receiverWithOutput() throws IOException {
+        List<SaveDiagnostic> diagnostics = validate(SIMPLE + "2-3\n");
+        assertEquals(1, diagnostics.size());
+        assertEquals("Receiver 3 cannot have an output", diagnostics.get(0).getMessage());
+    }
+
+    @Test
+    public void ignoredLinksAreWarnings() throws IOException {
+        List<SaveDiagnostic> diagnostics = validate(SIMPLE.replace("2-1,3", "2-1,7")
+                .replace(" w w\n", ""));
+        assertEquals(2, diagnostics.size());
+        assertTrue(diagnostics.get(0).isWarning());
+        assertEquals(12, diagnostics.get(0).getLine());
+        assertEquals("14:5: warning: Link to unknown node '7' is ignored",
+                diagnostics.get(1).toString());
+        assertFalse(SaveValidator.hasErrors(diagnostics));
+        assertTrue(validate(SIMPLE.replace("2-1,3", "2-,3")).isEmpty());
+    }
+
+    @Test
+    public void tooManyProblems() throws IOException {
+        List<SaveDiagnostic> diagnostics = validate(SIMPLE + "0\n".repeat(5000));
+        assertEquals(1001, diagnostics.size());
+        assertEquals("Too many problems, the rest of the file was not checked",
+                diagnostics.get(1000).getMessage());
+    }
+
+    @Test
+    public void validateFile() throws IOException {
+        java.nio.file.Path file = Files.createTempFile("grid", ".txt");
+        try {
+            Files.writeString(file, SIMPLE.replace("ab", "\u00e9b"), StandardCharsets.UTF_8);
+            List<SaveDiagnostic> diagnostics = SaveValidator.validate(file);
+            assertEquals(2, diagnostics.size());
+            assertEquals("6:1: error: Character is not ASCII", diagnostics.get(0).toString());
+            assertEquals(8, diagnostics.get(1).getLine());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void agreesWithLoader() throws IOException {
+        List<String> saves = new ArrayList<>();
+        try (DirectoryStream<java.nio.file.Path> files =
+                Files.newDirectoryStream(Paths.get("saves"), "*.txt")) {
+            for (java.nio.file.Path file : files) {
+                saves.add(Files.readString(file));
+            }
+        }
+        assertFalse(saves.isEmpty());
+        saves.add(SIMPLE);
+        saves.addAll(List.of(MALFORMED));
+
+        java.nio.file.Path file = Files.createTempFile("grid", ".txt");
+        try {
+            for (String save : saves) {
+                assertEquals(save, loads(save), !SaveValidator.hasErrors(validate(save)));
+
+                Files.writeString(file, save, StandardCharsets.UTF_8);
+                assertEquals(save, loads(file),
+                        !SaveValidator.hasErrors(SaveValidator.validate(file)));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package lms.logistics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ItemRegistryTest {
+    private ItemRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new ItemRegistry();
+    }
+
+    @Test
+    public void internSame() {
+        Item item = registry.intern("key");
+        assertSame(item, registry.intern("key"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void denseIds() {
+        assertEquals(0, registry.intern("a").getId());
+        assertEquals(1, registry.intern("b").getId());
+        assertEquals(0, registry.intern("a").getId());
+        assertEquals("b", registry.get(1).toString());
+        assertSame(registry, registry.get(0).getRegistry());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void internEmpty() {
+        registry.intern("");
+    }
+
+    @Test
+    public void idOfForeign() {
+        registry.intern("a");
+        Item item = new Item("b");
+        assertEquals(-1, item.getId());
+        assertEquals(1, registry.idOf(item));
+        assertEquals(1, registry.idOf(registry.intern("b")));
+    }
+
+    @Test
+    public void equality() {
+        ItemRegistry other = new ItemRegistry();
+        assertEquals(registry.intern("key"), new Item("key"));
+        assertEquals(registry.intern("key"), other.intern("key"));
+        assertNotEquals(registry.intern("key"), registry.intern("other"));
+    }
+
+    @Test
+    public void hashCollision() {
+        // "Aa" and "BB" have the same String hashCode
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(new Item("Aa"), new Item("BB"));
+        assertNotEquals(registry.intern("Aa"), registry.intern("BB"));
+    }
+}